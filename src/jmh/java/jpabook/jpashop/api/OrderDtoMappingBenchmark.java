@@ -0,0 +1,73 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.api.OrderApiController.OrderDto;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.item.Book;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * V2, V3 응답 만들기, 엔티티 -> OrderDto/OrderItemDto 변환만
+ * 엔티티는 프록시 없이 메모리에서 만든 객체라 지연 로딩/쿼리 비용은 빠지고 순수 매핑 비용만 남음
+ * rows는 주문상품 수, 주문 수는 rows / itemsPerOrder
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class OrderDtoMappingBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int rows;
+
+    //주문 하나당 주문상품 수
+    @Param({"2"})
+    int itemsPerOrder;
+
+    List<Order> orders;
+
+    @Setup
+    public void setUp() {
+        Address address = new Address("서울", "강가", "123-123");
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Book book = new Book();
+            book.setName("item" + i);
+            book.setPrice(10000);
+            books.add(book);
+        }
+
+        int orderCount = rows / itemsPerOrder;
+        orders = new ArrayList<>(orderCount);
+        for (int i = 0; i < orderCount; i++) {
+            Member member = new Member();
+            member.setName("user" + (i % 1000));
+            Delivery delivery = new Delivery();
+            delivery.setAddress(address);
+
+            OrderItem[] orderItems = new OrderItem[itemsPerOrder];
+            for (int j = 0; j < itemsPerOrder; j++) {
+                //재고는 건드리지 않는 생성 메서드
+                orderItems[j] = OrderItem.createReservedOrderItem(books.get((i * itemsPerOrder + j) % books.size()), 10000, 1);
+            }
+            Order order = Order.createOrder(member, delivery, orderItems);
+            order.setId((long) i + 1);
+            orders.add(order);
+        }
+    }
+
+    @Benchmark
+    public List<OrderDto> orderDto() {
+        return orders.stream()
+                .map(o -> new OrderDto(o))
+                .collect(toList());
+    }
+}
@@ -0,0 +1,76 @@
+package jpabook.jpashop.domain.id;
+
+import jpabook.jpashop.JpashopApplication;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.DeliveryStatus;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * id 생성 방식별 insert 처리량, 트랜잭션 하나에 BATCH건 persist + commit
+ * - pooled:1    예전 @GeneratedValue와 같음, insert마다 시퀀스를 다녀옴
+ * - pooled:1000 pooled-lo, 1000건마다 한번
+ * - time        DB를 거치지 않음
+ * H2 메모리 DB라 네트워크 왕복이 없으므로 MySQL에서는 차이가 더 큼
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class IdStrategyInsertBenchmark {
+
+    private static final int BATCH = 100;
+
+    @Param({"pooled:1", "pooled:1000", "time"})
+    String strategy;
+
+    ConfigurableApplicationContext context;
+    EntityManagerFactory emf;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String[] parts = strategy.split(":");
+        context = new SpringApplicationBuilder(JpashopApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        //MySQL용 설정(hikari data-source-properties)은 무시하도록
+                        "spring.datasource.url=jdbc:h2:mem:id-bench;DB_CLOSE_DELAY=-1;IGNORE_UNKNOWN_SETTINGS=TRUE",
+                        "spring.datasource.driver-class-name=org.h2.Driver",
+                        "spring.datasource.username=sa",
+                        "spring.datasource.password=",
+                        "spring.jpa.properties.jpashop.id.strategy=" + parts[0],
+                        "spring.jpa.properties.jpashop.id.allocation-size=" + (parts.length > 1 ? parts[1] : "1000"),
+                        "logging.level.org.hibernate.SQL=warn")
+                .run();
+        emf = context.getBean(EntityManagerFactory.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void insertDeliveries() {
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            for (int i = 0; i < BATCH; i++) {
+                Delivery delivery = new Delivery();
+                delivery.setAddress(new Address("서울", "강가", "123-123"));
+                delivery.setStatus(DeliveryStatus.READY);
+                em.persist(delivery);
+            }
+            em.getTransaction().commit();
+        } finally {
+            em.close();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package jpabook.jpashop.repository.order.query;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.OrderStatus;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.stream.Collectors.*;
+
+/**
+ * V6 플랫 row -> OrderQueryDto 변환
+ * 예전 groupingBy 방식과 OrderFlatAssembler(정렬된 row를 한번에 접는 방식) 비교
+ * -prof gc 의 gc.alloc.rate.norm 으로 op당 할당량을 같이 봄
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class OrderFlatAssemblyBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int rows;
+
+    //주문 하나당 주문상품 수
+    @Param({"2"})
+    int itemsPerOrder;
+
+    List<OrderFlatDto> flats;
+
+    @Setup
+    public void setUp() {
+        flats = new ArrayList<>(rows);
+        Address address = new Address("서울", "강가", "123-123");
+        LocalDateTime orderDate = LocalDateTime.of(2021, 1, 1, 0, 0);
+        for (int i = 0; i < rows; i++) {
+            long orderId = i / itemsPerOrder + 1;
+            flats.add(new OrderFlatDto(orderId, "user" + orderId, orderDate, OrderStatus.ORDER, address,
+                    "item" + (i % 100), 10000, 1));
+        }
+    }
+
+    @Benchmark
+    public List<OrderQueryDto> groupingBy() {
+        return flats.stream()
+                .collect(groupingBy(o -> new OrderQueryDto(o.getOrderId(), o.getName(), o.getOrderDate(), o.getOrderStatus(), o.getAddress()),
+                        mapping(o -> new OrderItemQueryDto(o.getOrderId(), o.getItemName(), o.getOrderPrice(), o.getCount()), toList())
+                )).entrySet().stream()
+                .map(e -> new OrderQueryDto(e.getKey().getOrderId(), e.getKey().getName(), e.getKey().getOrderDate(), e.getKey().getOrderStatus(), e.getKey().getAddress(), e.getValue()))
+                .collect(toList());
+    }
+
+    @Benchmark
+    public List<OrderQueryDto> orderedAssembler() {
+        return OrderFlatAssembler.assemble(flats);
+    }
+}
@@ -0,0 +1,42 @@
+package jpabook.jpashop.repository.order.query;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * V5 findOrderItemMap에서 IN 쿼리 결과를 주문 id별로 묶는 groupingBy
+ * 청크별 결과를 이어붙인 순서 그대로(주문 id 순) 넣음
+ * rows는 주문상품 수, 주문 수는 rows / itemsPerOrder
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class OrderItemGroupingBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int rows;
+
+    //주문 하나당 주문상품 수
+    @Param({"2"})
+    int itemsPerOrder;
+
+    List<OrderItemQueryDto> orderItems;
+
+    @Setup
+    public void setUp() {
+        orderItems = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            long orderId = i / itemsPerOrder + 1;
+            orderItems.add(new OrderItemQueryDto(orderId, "item" + (i % 100), 10000, 1));
+        }
+    }
+
+    @Benchmark
+    public Map<Long, List<OrderItemQueryDto>> groupByOrderId() {
+        return OrderQueryRepository.groupByOrderId(orderItems);
+    }
+}
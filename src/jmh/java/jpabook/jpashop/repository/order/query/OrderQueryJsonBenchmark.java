@@ -0,0 +1,74 @@
+package jpabook.jpashop.repository.order.query;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.OrderStatus;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OrderQueryDto 목록 JSON 직렬화
+ * - list: V4~V6 응답처럼 목록 전체를 byte[] 하나로
+ * - ndjson: /api/v6/orders/export처럼 주문 하나씩 직렬화해서 바로 스트림에 씀(여기서는 버리는 스트림)
+ * ObjectMapper는 스프링 부트 기본 설정과 같게(JavaTimeModule, 날짜는 ISO 문자열)
+ * rows는 주문상품 수, 주문 수는 rows / itemsPerOrder
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class OrderQueryJsonBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int rows;
+
+    //주문 하나당 주문상품 수
+    @Param({"2"})
+    int itemsPerOrder;
+
+    ObjectMapper objectMapper;
+    List<OrderQueryDto> orders;
+    OutputStream out;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        out = OutputStream.nullOutputStream();
+
+        Address address = new Address("서울", "강가", "123-123");
+        LocalDateTime orderDate = LocalDateTime.of(2021, 1, 1, 0, 0);
+        int orderCount = rows / itemsPerOrder;
+        orders = new ArrayList<>(orderCount);
+        for (int i = 0; i < orderCount; i++) {
+            long orderId = i + 1;
+            List<OrderItemQueryDto> orderItems = new ArrayList<>(itemsPerOrder);
+            for (int j = 0; j < itemsPerOrder; j++) {
+                orderItems.add(new OrderItemQueryDto(orderId, "item" + ((i * itemsPerOrder + j) % 100), 10000, 1));
+            }
+            orders.add(new OrderQueryDto(orderId, "user" + orderId, orderDate, OrderStatus.ORDER, address, orderItems));
+        }
+    }
+
+    @Benchmark
+    public byte[] list() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(orders);
+    }
+
+    @Benchmark
+    public void ndjson() throws IOException {
+        for (OrderQueryDto order : orders) {
+            out.write(objectMapper.writeValueAsBytes(order));
+            out.write('\n');
+        }
+    }
+}
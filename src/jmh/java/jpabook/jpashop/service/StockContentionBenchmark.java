@@ -0,0 +1,73 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.item.Book;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 인기 상품 하나에 8스레드가 동시에 예약(차감) + 반환
+ * - entityLocked: 지금처럼 Item.removeStock/addStock, 행 락 대신 모니터 락으로 한번에 한 스레드
+ * - singleAtomic: 카운터 하나에 CAS, 락은 없지만 모든 스레드가 같은 캐시 라인을 다툼
+ * - striped: StripedStock(StockLedger), 스레드마다 자기 칸에서 CAS
+ * 재고가 줄기만 하면 측정 중에 바닥나므로 매번 돌려줌(롤백된 예약과 같은 경로)
+ * DB 행 락 대기는 포함되지 않으므로 실제 차이는 이보다 큼
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(8)
+public class StockContentionBenchmark {
+
+    private static final int STOCK = 1_000_000;
+
+    @Param({"8"})
+    int stripes;
+
+    Book item;
+    AtomicInteger counter;
+    StripedStock striped;
+
+    @Setup
+    public void setUp() {
+        item = new Book();
+        item.setStockQuantity(STOCK);
+        counter = new AtomicInteger(STOCK);
+        striped = new StripedStock(stripes, STOCK);
+    }
+
+    @Benchmark
+    public void entityLocked() {
+        synchronized (item) {
+            item.removeStock(1);
+        }
+        synchronized (item) {
+            item.addStock(1);
+        }
+    }
+
+    @Benchmark
+    public void singleAtomic() {
+        for (;;) {
+            int current = counter.get();
+            if (current < 1) {
+                throw new IllegalStateException("need more stock");
+            }
+            if (counter.compareAndSet(current, current - 1)) {
+                break;
+            }
+        }
+        counter.incrementAndGet();
+    }
+
+    @Benchmark
+    public void striped() {
+        int stripe = striped.enter();
+        if (!striped.tryTake(stripe, 1)) {
+            throw new IllegalStateException("need more stock");
+        }
+        striped.add(stripe, 1);
+        striped.exit(stripe);
+    }
+}
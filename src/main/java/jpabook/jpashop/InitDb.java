@@ -3,6 +3,7 @@ package jpabook.jpashop;
 import jpabook.jpashop.domain.*;
 import jpabook.jpashop.domain.item.Book;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -22,7 +23,9 @@ import javax.persistence.EntityManager;
  * 	 * SPRING2 BOOK
  */
 //컴포넌트스캔 대상
+//jpashop.init-db.enabled=false면 안 넣음, 운영이나 datagen 프로파일(DataGenerator)에서는 끔
 @Component
+@ConditionalOnProperty(name = "jpashop.init-db.enabled", havingValue = "true", matchIfMissing = true)
 @RequiredArgsConstructor
 public class InitDb {
 
@@ -0,0 +1,49 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.exception.InvalidRequestException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import javax.persistence.EntityNotFoundException;
+import javax.persistence.OptimisticLockException;
+
+/**
+ * API 공통 예외 응답
+ * 낙관적 락 충돌(version이 다름, 주문 재시도 소진)은 409, 클라이언트가 다시 읽고 다시 보내면 됨
+ * 요청 값이 잘못되면(InvalidRequestException, 상품 종류가 다름, 잘못된 커서 등) 400, 없는 회원/상품/카테고리를 가리키면 404
+ * 그 밖의 IllegalArgumentException은 서버 쪽 버그이므로 메시지를 내보내지 않고 500으로 둠
+ */
+@RestControllerAdvice(basePackages = "jpabook.jpashop.api")
+public class ApiExceptionAdvice {
+
+    @ResponseStatus(HttpStatus.CONFLICT)
+    @ExceptionHandler({OptimisticLockingFailureException.class, OptimisticLockException.class})
+    public ErrorResponse conflict(RuntimeException e) {
+        return new ErrorResponse("CONFLICT", "다른 요청이 먼저 수정했습니다. 다시 조회한 뒤 시도해주세요.");
+    }
+
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ExceptionHandler(InvalidRequestException.class)
+    public ErrorResponse badRequest(InvalidRequestException e) {
+        return new ErrorResponse("BAD_REQUEST", e.getMessage());
+    }
+
+    //서비스가 대상을 못 찾았을때, getOne() 프록시를 초기화할때 row가 없을때 발생
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    @ExceptionHandler(EntityNotFoundException.class)
+    public ErrorResponse notFound(EntityNotFoundException e) {
+        return new ErrorResponse("NOT_FOUND", "대상을 찾을 수 없습니다.");
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class ErrorResponse {
+        private String code;
+        private String message;
+    }
+}
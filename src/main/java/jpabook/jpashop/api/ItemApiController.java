@@ -0,0 +1,59 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.repository.ItemAdjustment;
+import jpabook.jpashop.repository.ItemPatch;
+import jpabook.jpashop.service.ItemAdjustmentJob;
+import jpabook.jpashop.service.ItemAdjustmentProgress;
+import jpabook.jpashop.service.ItemService;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.Valid;
+
+/**
+ * 상품 수정/일괄 조정 API, 등록은 화면(/items/new)과 카탈로그 가져오기(ItemImportApiController)
+ */
+@RestController
+@RequiredArgsConstructor
+public class ItemApiController {
+
+    private final ItemService itemService;
+    private final ItemAdjustmentJob itemAdjustmentJob;
+
+    /**
+     * 부분 수정, 보낸 값만 바꿈(책/앨범/영화 전용 값 포함)
+     * version을 같이 보내면 상품을 읽지 않고 update 한번, 그 사이 다른 수정이나 주문이 있었으면 409
+     */
+    @PatchMapping("/api/v1/items/{id}")
+    public PatchItemResponse patchItem(@PathVariable("id") Long id, @RequestBody @Valid ItemPatch patch) {
+        Long version = itemService.patchItem(id, patch);
+        return new PatchItemResponse(id, version);
+    }
+
+    /**
+     * 가격/재고 일괄 조정(카테고리, 상품 종류, id 목록), 작업을 등록하고 바로 202
+     * 진행 상황은 Location의 조회 API로
+     */
+    @PostMapping("/api/v1/items/adjustments")
+    public ResponseEntity<ItemAdjustmentProgress> adjustItems(@RequestBody ItemAdjustment adjustment) {
+        ItemAdjustmentProgress progress = itemAdjustmentJob.submit(adjustment);
+        return ResponseEntity.accepted()
+                .header("Location", "/api/v1/items/adjustments/" + progress.getJobId())
+                .body(progress);
+    }
+
+    @GetMapping("/api/v1/items/adjustments/{jobId}")
+    public ResponseEntity<ItemAdjustmentProgress> adjustment(@PathVariable("jobId") String jobId) {
+        return ResponseEntity.of(itemAdjustmentJob.find(jobId));
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class PatchItemResponse {
+        private Long id;
+        private Long version; //다음 부분 수정에 보낼 version
+    }
+}
@@ -0,0 +1,43 @@
+package jpabook.jpashop.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jpabook.jpashop.service.CatalogImportJob;
+import jpabook.jpashop.service.CatalogImportResult;
+import jpabook.jpashop.service.CatalogRecordReader;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 공급사 카탈로그 가져오기, 요청 본문을 파일 그대로(text/csv 또는 application/x-ndjson)
+ * 본문을 메모리나 임시파일에 모으지 않고 읽는 대로 청크 단위로 저장
+ * curl -X POST -H 'Content-Type: text/csv' --data-binary @catalog.csv localhost:8080/api/v1/items/import
+ */
+@RestController
+@RequiredArgsConstructor
+public class ItemImportApiController {
+
+    private final CatalogImportJob catalogImportJob;
+    private final ObjectMapper objectMapper;
+
+    @PostMapping(value = "/api/v1/items/import", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    public CatalogImportResult importItems(HttpServletRequest request) throws IOException {
+        Charset charset = request.getCharacterEncoding() == null
+                ? StandardCharsets.UTF_8 : Charset.forName(request.getCharacterEncoding());
+        Reader body = new InputStreamReader(request.getInputStream(), charset);
+        boolean ndjson = MediaType.APPLICATION_NDJSON.isCompatibleWith(MediaType.parseMediaType(request.getContentType()));
+
+        try (CatalogRecordReader reader = ndjson
+                ? CatalogRecordReader.ndjson(body, objectMapper) : CatalogRecordReader.csv(body)) {
+            return catalogImportJob.run(reader);
+        }
+    }
+}
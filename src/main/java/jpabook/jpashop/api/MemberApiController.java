@@ -1,6 +1,7 @@
 package jpabook.jpashop.api;
 
 import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.repository.MemberPatch;
 import jpabook.jpashop.service.MemberService;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -93,6 +94,16 @@ public class MemberApiController {
        return new UpdateMemberResponse(findMember.getId(), findMember.getName());
     }
 
+    /**
+     * 부분 수정 API, 보낸 값만 바꿈
+     * version을 같이 보내면 회원을 읽지 않고 update 한번, 그 사이 다른 수정이 있었으면 409
+     */
+    @PatchMapping("/api/v2/members/{id}")
+    public PatchMemberResponse patchMemberV2(@PathVariable("id") Long id, @RequestBody MemberPatch patch) {
+        Long version = memberService.patch(id, patch);
+        return new PatchMemberResponse(id, version);
+    }
+
     /**
      * 조회 V1: 안 좋은 버전, 모든 엔티티가 노출, @JsonIgnore -> 이건 정말 최악, api가 이거 하나인가! 화면에 종속적이지 마라!
      * 문제점
@@ -175,6 +186,13 @@ public class MemberApiController {
     }
 
 
+    @Data
+    @AllArgsConstructor
+    static class PatchMemberResponse {
+        private Long id;
+        private Long version; //다음 부분 수정에 보낼 version
+    }
+
     /**
      * API스펙 자체가 name만 받게 되있구나
      */
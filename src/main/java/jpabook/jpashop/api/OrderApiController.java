@@ -1,20 +1,24 @@
 package jpabook.jpashop.api;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jpabook.jpashop.domain.Address;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderItem;
 import jpabook.jpashop.domain.OrderStatus;
 import jpabook.jpashop.repository.*;
-import jpabook.jpashop.repository.order.query.OrderFlatDto;
-import jpabook.jpashop.repository.order.query.OrderItemQueryDto;
 import jpabook.jpashop.repository.order.query.OrderQueryDto;
 import jpabook.jpashop.repository.order.query.OrderQueryRepository;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -37,7 +41,7 @@ import static java.util.stream.Collectors.*;
  * V5. JPA에서 DTO로 바로 조회, 컬렉션 1 조회 최적화 버전 (1 + 1 Query)
  * - 페이징 가능
  * V6. JPA에서 DTO로 바로 조회, 플랫 데이터(1Query) (1 Query)
- * - 페이징 불가능...
+ * - 주문 기준 페이징은 row 수로 근사(잘린 마지막 주문은 다음 페이지로)
  *
  */
 //주문한 내역과 주문안에 있는 상품명을 출력하는
@@ -47,6 +51,7 @@ public class OrderApiController {
 
     private final OrderRepository orderRepository;
     private final OrderQueryRepository orderQueryRepository;
+    private final ObjectMapper objectMapper;
 
     /**
      * V1. 엔티티 직접 노출
@@ -164,6 +169,22 @@ public class OrderApiController {
         return result;
     }
 
+    /**
+     * V3.2 V3.1과 같은 조회 방식에 키셋(커서) 페이징
+     * - ToOne 관계는 페치 조인, 컬렉션은 default_batch_fetch_size로 IN 쿼리 1번
+     * - offset 대신 after(이전 응답의 nextCursor)로 다음 페이지 조회, 페이지가 깊어져도 응답 시간이 일정
+     * - 마지막 페이지면 nextCursor는 null
+     * - limit은 1 ~ OrderQueryCondition.MAX_LIMIT로 맞춤, 잘못된 커서는 400(ApiExceptionAdvice)
+     */
+    @GetMapping("/api/v3.2/orders")
+    public PageResult<List<OrderDto>> ordersV3_cursor(@RequestParam(value = "after", required = false) String after,
+                                                      @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        limit = OrderQueryCondition.clampLimit(limit);
+
+        CursorPage<Order> page = orderRepository.findAllWithMemberDeliveryAfter(OrderCursor.decode(after), limit);
+        return PageResult.of(page, o -> new OrderDto(o));
+    }
+
     /**
      * Query: 루트 1번, 컬렉션 N 번 실행
      * ToOne(N:1, 1:1) 관계들을 먼저 조회하고, ToMany(1:N) 관계는 각각 별도로 처리한다.
@@ -175,9 +196,10 @@ public class OrderApiController {
      * @return
      */
     @GetMapping("/api/v4/orders")
-    public List<OrderQueryDto> ordersV4() {
+    public PageResult<List<OrderQueryDto>> ordersV4(@ModelAttribute OrderPageParams params) {
 
-        return orderQueryRepository.findOrderQueryDtos();
+        CursorPage<OrderQueryDto> page = orderQueryRepository.findOrderQueryDtos(params.toCondition());
+        return PageResult.of(page);
     }
 
     /**
@@ -188,9 +210,27 @@ public class OrderApiController {
      * @return
      */
     @GetMapping("/api/v5/orders")
-    public List<OrderQueryDto> ordersV5() {
+    public PageResult<List<OrderQueryDto>> ordersV5(@ModelAttribute OrderPageParams params) {
 
-        return orderQueryRepository.findAllByDto_optimization();
+        //페이지의 주문 id만 조회하고 캐시에 없는 주문만 루트 1번 + 컬렉션 IN 쿼리 1번으로 채움
+        CursorPage<OrderQueryDto> page = orderQueryRepository.findAllByDto_cache(params.toCondition());
+        return PageResult.of(page);
+    }
+
+    /**
+     * V5.1 캐시 없이 V5와 같은 쿼리 2번, 대신 루트와 컬렉션을 동시에 조회
+     * 컬렉션을 루트 결과의 주문 id가 아닌 같은 조건(커서, 주문시간 범위)으로 읽으므로 기다릴 필요가 없음
+     * 응답 시간이 루트 + 컬렉션에서 둘 중 긴 쪽으로 줄어듬, 대신 요청 하나가 커넥션을 2개 씀
+     * parallel=false면 루트 조회 후 컬렉션 조회(순차), order.query.stage 타이머로 둘을 비교
+     */
+    @GetMapping("/api/v5.1/orders")
+    public PageResult<List<OrderQueryDto>> ordersV5_parallel(@ModelAttribute OrderPageParams params,
+                                                             @RequestParam(value = "parallel", defaultValue = "true") boolean parallel) {
+
+        CursorPage<OrderQueryDto> page = parallel
+                ? orderQueryRepository.findAllByDto_parallel(params.toCondition())
+                : orderQueryRepository.findAllByDto_optimization(params.toCondition());
+        return PageResult.of(page);
     }
 
     /**
@@ -204,32 +244,51 @@ public class OrderApiController {
      * 쿼리는 한번이지만 조인으로 인해 DB에서 애플리케이션에 전달하는 데이터에 중복 데이터가 추가되므로
      *  상황에 따라 V5 보다 더 느릴 수 도 있다.
      * 애플리케이션에서 추가 작업이 크다. 분해해야 하는 경우
-     * 페이징 불가능, order를 기준으로 할때는 안됨됨    @GetMapping("/api/v6/orders")
+     * 페이징 불가능, order를 기준으로 할때는 안됨
      * OrderFlatDto가 아닌 OrderQueryDto로 스펙을 맞추고 싶으면 직접 중복을 걸르면 됨
      * 루프를 돌려 OrderQueryDto랑 OrderItemQueryDto 발라내면 됨
      * @return
      */
-    public List<OrderQueryDto> ordersV6() {
-        List<OrderFlatDto> flats = orderQueryRepository.findAllByDto_flat();
+    @GetMapping("/api/v6/orders")
+    public PageResult<List<OrderQueryDto>> ordersV6(@ModelAttribute OrderPageParams params) {
 
         /**
-         * flats을 가지고 루프를 돌려 OrderFlatDto를 OrderQueryDto로 바꾸는
-         * 그러면서 OrderQueryDto랑 OrderItemQueryDto 관련된걸 발라내 최종적으로 OrderQueryDto 만듬
-         * 그룹바이할때 뭘 묶을지 알려줘야함, 아이디를 알려줌
-         * OrderQueryDto클래스에서 해시코드 넣어줌
+         * 플랫 row를 OrderQueryDto로 바꾸는건 리포지토리의 OrderFlatAssembler가 함
+         * 예전에는 groupingBy로 row마다 OrderQueryDto를 새로 만들어 키로 썼는데(row당 DTO 2개, 해시 순서로 뒤섞임)
+         * 쿼리가 o.id 순으로 정렬되어 있으므로 인접한 row끼리 한번에 접음, 주문 순서도 그대로 유지
+         * 주문 기준 limit은 row 수로 근사하고, 잘린 주문은 다음 페이지로 넘김, 쿼리는 여전히 1번
          */
-        return flats.stream()
-                .collect(groupingBy(o -> new OrderQueryDto(o.getOrderId(), o.getName(), o.getOrderDate(), o.getOrderStatus(), o.getAddress()),
-                        mapping(o -> new OrderItemQueryDto(o.getOrderId(), o.getItemName(), o.getOrderPrice(), o.getCount()), toList())
-                )).entrySet().stream()
-                .map(e -> new OrderQueryDto(e.getKey().getOrderId(), e.getKey().getName(), e.getKey().getOrderDate(), e.getKey().getOrderStatus(), e.getKey().getAddress(), e.getValue()))
-                .collect(toList());
+        CursorPage<OrderQueryDto> page = orderQueryRepository.findAllByDto_flat(params.toCondition());
+        return PageResult.of(page);
     }
 
 
+    /**
+     * 전체 주문 export, NDJSON(한 줄에 주문 하나)
+     * V6 플랫 조인을 커서로 읽으면서 주문 하나가 완성될 때마다 바로 응답 스트림에 씀
+     * List<OrderQueryDto>를 다 만든 다음 Jackson에 넘기지 않으므로 주문이 천 건이든 수천만 건이든 메모리 사용량이 일정
+     */
+    @GetMapping("/api/v6/orders/export")
+    public void ordersExport(HttpServletResponse response) throws IOException {
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+
+        OutputStream out = response.getOutputStream();
+        orderQueryRepository.exportAllByDto_flat(o -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(o));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        out.flush();
+    }
+
     /**
      * v6가 가장 좋다고 말하기 어렵다. v5는 쿼리는 2번 정규화된 데이터 v6는 쿼리가 한 번 나가지만 많은 데이터
      */
+
     @Data
     static class OrderDto {
 
@@ -0,0 +1,89 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.exception.InvalidRequestException;
+import jpabook.jpashop.service.BulkCancelResult;
+import jpabook.jpashop.service.BulkOrderResult;
+import jpabook.jpashop.service.OptimisticLockOrderFacade;
+import jpabook.jpashop.service.OrderCancelJob;
+import jpabook.jpashop.service.OrderRequest;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import java.util.List;
+
+/**
+ * 주문 등록/대량 취소 API, 조회는 OrderApiController
+ * 재고 충돌(낙관적 락)은 OptimisticLockOrderFacade가 다시 시도
+ */
+@RestController
+@RequiredArgsConstructor
+public class OrderCommandApiController {
+
+    private final OptimisticLockOrderFacade orderFacade;
+    private final OrderCancelJob orderCancelJob;
+
+    @Value("${jpashop.order.bulk.max-orders:10000}")
+    private int maxBulkOrders;
+
+    /**
+     * 장바구니 주문, 여러 상품을 주문 하나로
+     */
+    @PostMapping("/api/v1/orders")
+    public CreateOrderResponse createOrder(@RequestBody @Valid OrderRequest request) {
+        Long orderId = orderFacade.order(request.getMemberId(), request.getLines());
+        return new CreateOrderResponse(orderId);
+    }
+
+    /**
+     * 대량 주문, 요청 하나에 주문 여러개를 트랜잭션 하나로
+     * 응답의 ordersPerSecond로 건별 주문(/order, /api/v1/orders)과 처리량 비교
+     */
+    @PostMapping("/api/v1/orders/bulk")
+    public BulkOrderResult createOrders(@RequestBody @Valid BulkOrderRequest request) {
+        if (request.getOrders().size() > maxBulkOrders) {
+            throw new InvalidRequestException("한번에 주문할 수 있는 건수를 넘었습니다: " + maxBulkOrders);
+        }
+        return orderFacade.placeBulk(request.getOrders());
+    }
+
+    /**
+     * 대량 취소, 주문별 결과(CANCELED, NOT_FOUND, ALREADY_CANCELED, ALREADY_DELIVERED)를 요청 순서대로
+     * 주문 수와 관계없이 청크마다 쿼리 5번, 건별 취소(/orders/{orderId}/cancel)와 ordersPerSecond로 비교
+     */
+    @PostMapping("/api/v1/orders/cancel")
+    public BulkCancelResult cancelOrders(@RequestBody @Valid BulkCancelRequest request) {
+        if (request.getOrderIds().size() > maxBulkOrders) {
+            throw new InvalidRequestException("한번에 취소할 수 있는 건수를 넘었습니다: " + maxBulkOrders);
+        }
+        return orderCancelJob.run(request.getOrderIds());
+    }
+
+    @Data
+    static class BulkCancelRequest {
+
+        @NotEmpty
+        private List<@NotNull Long> orderIds;
+    }
+
+    @Data
+    static class BulkOrderRequest {
+
+        @NotEmpty
+        @Valid
+        private List<OrderRequest> orders;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class CreateOrderResponse {
+        private Long orderId;
+    }
+}
@@ -0,0 +1,41 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.service.OrderIntake;
+import jpabook.jpashop.service.OrderIntakeTicket;
+import jpabook.jpashop.service.OrderRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.Valid;
+
+/**
+ * 비동기 주문 접수 API (jpashop.order.intake.enabled=true 일때만)
+ * 접수되면 202 + 접수표, 큐가 가득 차면 429, 결과는 접수표 조회로
+ */
+@RestController
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "jpashop.order.intake.enabled", havingValue = "true")
+public class OrderIntakeApiController {
+
+    private final OrderIntake orderIntake;
+
+    @PostMapping("/api/v1/orders/async")
+    public ResponseEntity<OrderIntakeTicket> submit(@RequestBody @Valid OrderRequest request) {
+        return orderIntake.submit(request)
+                .map(ticket -> ResponseEntity.accepted()
+                        .header(HttpHeaders.LOCATION, "/api/v1/orders/async/" + ticket.getTicketId())
+                        .body(ticket))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                        .header(HttpHeaders.RETRY_AFTER, "1")
+                        .build());
+    }
+
+    @GetMapping("/api/v1/orders/async/{ticketId}")
+    public ResponseEntity<OrderIntakeTicket> ticket(@PathVariable("ticketId") String ticketId) {
+        return ResponseEntity.of(orderIntake.find(ticketId));
+    }
+}
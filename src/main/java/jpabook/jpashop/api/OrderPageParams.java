@@ -0,0 +1,32 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.repository.OrderCursor;
+import jpabook.jpashop.repository.OrderQueryCondition;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * 주문 DTO 조회 API 공통 쿼리 파라미터
+ * ?after=<nextCursor>&limit=100&status=ORDER&from=2021-01-01T00:00:00&to=2021-02-01T00:00:00
+ */
+@Getter @Setter
+public class OrderPageParams {
+
+    private String after; //이전 응답의 nextCursor
+    private int limit = OrderQueryCondition.DEFAULT_LIMIT;
+    private OrderStatus status;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime from;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime to;
+
+    public OrderQueryCondition toCondition() {
+        return OrderQueryCondition.of(OrderCursor.decode(after), limit, status, from, to);
+    }
+}
@@ -9,6 +9,8 @@ import jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryRepository;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.time.LocalDateTime;
@@ -128,6 +130,20 @@ public class OrderSimpleApiController {
         return result;
     }
 
+    /**
+     * V3.1 V3 페치 조인에 키셋(커서) 페이징
+     * - toOne만 페치 조인하므로 row 수가 늘지 않아 limit을 걸어도 안전
+     * - after에는 이전 응답의 nextCursor를 넘김, order_id PK 인덱스로 바로 찾아가므로 페이지 깊이와 무관
+     * - limit은 1 ~ OrderQueryCondition.MAX_LIMIT로 맞춤, 잘못된 커서는 400(ApiExceptionAdvice)
+     */
+    @GetMapping("/api/v3.1/simple-orders")
+    public PageResult<List<SimpleOrderDto>> ordersV3_cursor(@RequestParam(value = "after", required = false) String after,
+                                                            @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        limit = OrderQueryCondition.clampLimit(limit);
+        CursorPage<Order> page = orderRepository.findAllWithMemberDeliveryAfter(OrderCursor.decode(after), limit);
+        return PageResult.of(page, o -> new SimpleOrderDto(o));
+    }
+
     /**
      * v3처럼 엔티티를 dto로 변환하는게 아닌 dto로 바로 끄집어내는
      * select에서 원하는거만 뽑아냄
@@ -137,8 +153,10 @@ public class OrderSimpleApiController {
      * @return
      */
     @GetMapping("/api/v4/simple-orders")
-    public List<OrderSimpleQueryDto> ordersV4() {
-        return orderSimpleQueryRepository.findOrderDtos();
+    public PageResult<List<OrderSimpleQueryDto>> ordersV4(@ModelAttribute OrderPageParams params) {
+        //주문상품이 없는 화면이라 주문 + 회원 + 배송 조인 한번으로 끝, 주문상품 IN 쿼리를 도는 조회 캐시는 쓰지 않음
+        CursorPage<OrderSimpleQueryDto> page = orderSimpleQueryRepository.findOrderDtos(params.toCondition());
+        return PageResult.of(page);
     }
 
     /**
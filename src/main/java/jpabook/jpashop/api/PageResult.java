@@ -0,0 +1,34 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.repository.CursorPage;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+import java.util.function.Function;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * 키셋 페이징 응답 껍데기, 다음 페이지 조회용 커서를 같이 내려줌
+ * 마지막 페이지면 nextCursor는 null
+ */
+@Data
+@AllArgsConstructor
+public class PageResult<T> {
+
+    private T data;
+    private String nextCursor;
+
+    public static <T> PageResult<List<T>> of(CursorPage<T> page) {
+        return new PageResult<>(page.getContent(), page.getNextCursor());
+    }
+
+    //엔티티 페이지를 DTO로 바꿔서 내려줄때
+    public static <E, T> PageResult<List<T>> of(CursorPage<E> page, Function<E, T> mapper) {
+        List<T> data = page.getContent().stream()
+                .map(mapper)
+                .collect(toList());
+        return new PageResult<>(data, page.getNextCursor());
+    }
+}
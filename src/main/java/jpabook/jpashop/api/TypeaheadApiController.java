@@ -0,0 +1,37 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.repository.NameMatch;
+import jpabook.jpashop.service.ItemCatalog;
+import jpabook.jpashop.service.MemberDirectory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 주문 화면 자동완성, 이름 앞부분으로 최대 limit개
+ * DB를 거치지 않고 메모리 인덱스(MemberDirectory, ItemCatalog)에서 바로 찾음
+ */
+@RestController
+@RequiredArgsConstructor
+public class TypeaheadApiController {
+
+    private static final int MAX_LIMIT = 50;
+
+    private final MemberDirectory memberDirectory;
+    private final ItemCatalog itemCatalog;
+
+    @GetMapping("/api/typeahead/members")
+    public List<NameMatch> members(@RequestParam("q") String q,
+                                   @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return memberDirectory.search(q, Math.min(limit, MAX_LIMIT));
+    }
+
+    @GetMapping("/api/typeahead/items")
+    public List<NameMatch> items(@RequestParam("q") String q,
+                                 @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return itemCatalog.searchByName(q, Math.min(limit, MAX_LIMIT));
+    }
+}
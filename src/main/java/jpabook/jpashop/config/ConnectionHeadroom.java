@@ -0,0 +1,48 @@
+package jpabook.jpashop.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * 조회를 나눠서 다른 스레드(별도 커넥션)로 보낼때 요청 스레드 말고 더 쓸 수 있는 커넥션 수
+ * 요청 스레드는 이미 커넥션(OSIV)을 잡은 채로 작업 스레드를 기다리므로, 요청이 몰려서 풀이 바닥나면
+ * 작업 스레드는 커넥션을 못 얻고 요청 스레드는 작업 스레드를 기다리며 서로 멈춤
+ * 허용량을 커넥션 풀보다 작게 두고, 허용량을 못 얻으면 기다리지 않고 지금 스레드(지금 커넥션)에서 순차로 실행
+ */
+@Component
+public class ConnectionHeadroom {
+
+    private final Semaphore permits;
+    private final Counter fallbacks;
+
+    public ConnectionHeadroom(@Value("${jpashop.query.max-extra-connections:4}") int maxExtraConnections,
+                              MeterRegistry meterRegistry) {
+        this.permits = new Semaphore(maxExtraConnections);
+        this.fallbacks = Counter.builder("order.query.headroom.fallback")
+                .description("허용량이 없어서 나누지 않고 요청 스레드에서 순차로 실행한 조회 수")
+                .register(meterRegistry);
+        Gauge.builder("order.query.headroom.available", permits, Semaphore::availablePermits)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 커넥션 하나를 더 써도 되면 true, 작업이 끝나면 release() 해야 함
+     * 못 얻으면 바로 false, 기다리지 않음
+     */
+    public boolean tryAcquire() {
+        if (permits.tryAcquire()) {
+            return true;
+        }
+        fallbacks.increment();
+        return false;
+    }
+
+    public void release() {
+        permits.release();
+    }
+}
@@ -0,0 +1,47 @@
+package jpabook.jpashop.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class QueryExecutorConfig {
+
+    /**
+     * 조회 쿼리를 나눠서 동시에 실행할때 쓰는 스레드 풀
+     * 스레드 하나가 커넥션 하나를 잡으므로 커넥션 풀 크기보다 작게 잡아야 다른 요청이 커넥션을 못 얻는 일이 없음
+     * 큐가 가득 차면 호출한 스레드가 직접 실행(CallerRunsPolicy), 무한정 쌓이지 않음
+     */
+    @Bean
+    public ThreadPoolTaskExecutor orderQueryExecutor(@Value("${jpashop.query.parallelism:4}") int parallelism,
+                                                     @Value("${jpashop.query.queue-capacity:256}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("order-query-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+
+    /**
+     * v5.1 루트 조회와 주문상품 조회를 동시에 돌릴때 쓰는 스레드 풀
+     * orderQueryExecutor와 나눈 이유는 IN 청크가 몰려도 단계 병렬 조회가 그 뒤에 줄서지 않게 하기 위함
+     * 요청 하나당 스레드(커넥션) 하나를 더 쓰므로 stage-parallelism이 동시에 병렬로 도는 요청 수의 상한
+     * 넘치면 호출 스레드가 직접 실행하므로 순차 조회와 같아질 뿐 실패하지 않음
+     */
+    @Bean
+    public ThreadPoolTaskExecutor orderStageExecutor(@Value("${jpashop.query.stage-parallelism:4}") int parallelism,
+                                                     @Value("${jpashop.query.stage-queue-capacity:16}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("order-stage-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+}
@@ -0,0 +1,60 @@
+package jpabook.jpashop.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+
+/**
+ * 자기가 쓴 데이터는 바로 보이게(read-your-writes)
+ * 쓰기 트랜잭션을 커밋한 클라이언트는 window 동안 읽기도 primary로, 복제 지연으로 방금 쓴 값이 안보이는 일이 없게
+ * 클라이언트 키는 요청마다 ReadYourWritesInterceptor가 현재 스레드에 넣음(X-Member-Id 헤더, 없으면 세션 id)
+ * 같은 스레드도 window 동안 primary, 커밋 직후 리스너나 배치 작업이 방금 쓴 값을 다시 읽을때
+ */
+public class ReadYourWrites {
+
+    private static final ThreadLocal<String> currentClient = new ThreadLocal<>();
+    private static final ThreadLocal<Long> threadLastWrite = new ThreadLocal<>();
+
+    private final long windowNanos;
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReadYourWrites(Duration window) {
+        this.windowNanos = window.toNanos();
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .build();
+    }
+
+    public static void setClient(String clientKey) {
+        currentClient.set(clientKey);
+    }
+
+    public static String currentClient() {
+        return currentClient.get();
+    }
+
+    //요청이 끝나면 호출, 스레드가 다음 요청을 받을때 이전 요청의 쓰기 기록이 남지 않게
+    public static void clear() {
+        currentClient.remove();
+        threadLastWrite.remove();
+    }
+
+    //커밋한 스레드에서 호출
+    public void recordWrite(String clientKey) {
+        threadLastWrite.set(System.nanoTime());
+        if (clientKey != null) {
+            recentWriters.put(clientKey, Boolean.TRUE);
+        }
+    }
+
+    //현재 클라이언트나 스레드가 window 안에 쓴 적이 있는지
+    public boolean recentlyWrote() {
+        Long lastWrite = threadLastWrite.get();
+        if (lastWrite != null && System.nanoTime() - lastWrite < windowNanos) {
+            return true;
+        }
+        String client = currentClient.get();
+        return client != null && recentWriters.getIfPresent(client) != null;
+    }
+}
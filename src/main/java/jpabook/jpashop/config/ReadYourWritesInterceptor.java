@@ -0,0 +1,31 @@
+package jpabook.jpashop.config;
+
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+
+/**
+ * 요청한 클라이언트를 현재 스레드에 기록, 읽기 전용 트랜잭션을 primary/replica 중 어디로 보낼지 판단할때 씀
+ */
+public class ReadYourWritesInterceptor implements HandlerInterceptor {
+
+    static final String CLIENT_HEADER = "X-Member-Id";
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String client = request.getHeader(CLIENT_HEADER);
+        if (client == null) {
+            HttpSession session = request.getSession(false);
+            client = session == null ? null : session.getId();
+        }
+        ReadYourWrites.setClient(client);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        ReadYourWrites.clear();
+    }
+}
@@ -0,0 +1,201 @@
+package jpabook.jpashop.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 읽기 전용 트랜잭션(@Transactional(readOnly = true))은 replica, 나머지는 primary로 커넥션을 줌
+ * - 트랜잭션이 readOnly인지는 커넥션을 실제로 얻는 시점에 알 수 있으므로 LazyConnectionDataSourceProxy로 감싸서 써야 함
+ * - replica 고르기: ROUND_ROBIN(차례로) | LEAST_LOADED(사용 중 커넥션이 가장 적은 풀)
+ * - 쓰기를 커밋한 클라이언트는 ReadYourWrites window 동안 읽기도 primary
+ * - 헬스 체크에 실패했거나 커넥션을 못 얻은 replica는 빼고, 다음 헬스 체크에 성공하면 다시 넣음, 모두 빠지면 primary
+ * - 헬스 체크는 전용 스레드에서 healthCheckTimeout 안에 끝나게, replica가 응답 없이 매달려도 다른 @Scheduled 작업을 막지 않음
+ * 지표: datasource.routing.connections{target}, datasource.replica.healthy{replica}, 풀별 hikaricp.*{pool}
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    public enum Balance {
+        ROUND_ROBIN, LEAST_LOADED
+    }
+
+    private final HikariDataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final Balance balance;
+    private final ReadYourWrites readYourWrites;
+    private final Counter primaryConnections;
+    private final Counter readYourWritesConnections;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Duration healthCheckTimeout;
+    private final ScheduledExecutorService healthChecker;
+
+    public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicaPools, Balance balance,
+                                    ReadYourWrites readYourWrites, MeterRegistry meterRegistry,
+                                    Duration healthCheckInterval, Duration healthCheckTimeout) {
+        this.primary = primary;
+        this.healthCheckTimeout = healthCheckTimeout;
+        this.balance = balance;
+        this.readYourWrites = readYourWrites;
+        this.primaryConnections = meterRegistry.counter("datasource.routing.connections", "target", "primary");
+        this.readYourWritesConnections = meterRegistry.counter("datasource.routing.connections",
+                "target", "primary-read-your-writes");
+        for (HikariDataSource pool : replicaPools) {
+            Replica replica = new Replica(pool, meterRegistry.counter("datasource.routing.connections",
+                    "target", pool.getPoolName()));
+            Gauge.builder("datasource.replica.healthy", replica, r -> r.healthy ? 1 : 0)
+                    .tag("replica", pool.getPoolName())
+                    .register(meterRegistry);
+            replicas.add(replica);
+        }
+        this.healthChecker = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("replica-health-"));
+        healthChecker.scheduleWithFixedDelay(this::checkHealth, healthCheckInterval.toMillis(),
+                healthCheckInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            recordWriteOnCommit();
+            primaryConnections.increment();
+            return primary.getConnection();
+        }
+        if (readYourWrites.recentlyWrote()) {
+            readYourWritesConnections.increment();
+            return primary.getConnection();
+        }
+        Replica replica = choose();
+        if (replica != null) {
+            try {
+                Connection connection = replica.pool.getConnection();
+                replica.routed.increment();
+                return connection;
+            } catch (SQLException e) {
+                markDown(replica, e);
+            }
+        }
+        primaryConnections.increment();
+        return primary.getConnection();
+    }
+
+    //계정을 지정한 커넥션은 라우팅하지 않고 primary로, HikariDataSource는 지원하지 않으므로 SQLFeatureNotSupportedException
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        primaryConnections.increment();
+        return primary.getConnection(username, password);
+    }
+
+    private Replica choose() {
+        List<Replica> healthy = new ArrayList<>(replicas.size());
+        for (Replica replica : replicas) {
+            if (replica.healthy) {
+                healthy.add(replica);
+            }
+        }
+        if (healthy.isEmpty()) {
+            return null;
+        }
+        if (balance == Balance.LEAST_LOADED) {
+            return healthy.stream()
+                    .min(Comparator.comparingInt(Replica::activeConnections))
+                    .get();
+        }
+        return healthy.get(Math.floorMod(next.getAndIncrement(), healthy.size()));
+    }
+
+    //쓰기 트랜잭션이 커밋되면 이 클라이언트는 한동안 primary에서 읽음
+    private void recordWriteOnCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        String client = ReadYourWrites.currentClient();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                readYourWrites.recordWrite(client);
+            }
+        });
+    }
+
+    /**
+     * replica마다 커넥션을 얻어서 검사, 상태가 바뀌면 로그
+     * 커넥션 얻기는 replica 풀의 connectionTimeout, 검사 쿼리는 healthCheckTimeout(네트워크 타임아웃 + isValid)까지만 기다림
+     */
+    public void checkHealth() {
+        for (Replica replica : replicas) {
+            boolean healthy;
+            try (Connection connection = replica.pool.getConnection()) {
+                healthy = probe(connection);
+            } catch (SQLException | RuntimeException e) {
+                //scheduleWithFixedDelay는 예외가 나면 다음 검사를 하지 않으므로 여기서 다 잡음
+                healthy = false;
+            }
+            if (healthy && !replica.healthy) {
+                log.info("replica {} is back, routing reads to it again", replica.pool.getPoolName());
+            } else if (!healthy && replica.healthy) {
+                log.warn("replica {} failed health check, routing its reads to the primary", replica.pool.getPoolName());
+            }
+            replica.healthy = healthy;
+        }
+    }
+
+    //네트워크 타임아웃은 풀에 돌려줄때 hikari가 원래대로 되돌림
+    private boolean probe(Connection connection) throws SQLException {
+        int timeoutMs = (int) healthCheckTimeout.toMillis();
+        try {
+            connection.setNetworkTimeout(Runnable::run, timeoutMs);
+        } catch (SQLFeatureNotSupportedException e) {
+            //드라이버가 지원하지 않으면 isValid 타임아웃만
+        }
+        return connection.isValid(Math.max(1, (timeoutMs + 999) / 1000));
+    }
+
+    private void markDown(Replica replica, SQLException e) {
+        if (replica.healthy) {
+            log.warn("replica {} connection failed, routing its reads to the primary", replica.pool.getPoolName(), e);
+        }
+        replica.healthy = false;
+    }
+
+    @Override
+    public void close() {
+        healthChecker.shutdownNow();
+        replicas.forEach(replica -> replica.pool.close());
+        primary.close();
+    }
+
+    private static class Replica {
+
+        private final HikariDataSource pool;
+        private final Counter routed;
+        private volatile boolean healthy = true;
+
+        Replica(HikariDataSource pool, Counter routed) {
+            this.pool = pool;
+            this.routed = routed;
+        }
+
+        int activeConnections() {
+            return pool.getHikariPoolMXBean() == null ? 0 : pool.getHikariPoolMXBean().getActiveConnections();
+        }
+    }
+}
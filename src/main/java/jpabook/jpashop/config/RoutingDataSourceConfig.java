@@ -0,0 +1,88 @@
+package jpabook.jpashop.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * primary + replica 라우팅 (jpashop.datasource.routing.enabled=true)
+ * primary는 spring.datasource.*, replica는 jpashop.datasource.replica-urls(쉼표로 여러개)
+ * 풀 설정(spring.datasource.hikari.*)은 replica에도 똑같이 적용, 계정은 replica-username/password가 없으면 primary와 같음
+ * 단 replica는 빨리 포기하고 primary로 넘어가야 하므로 connectionTimeout을 짧게(replica-connection-timeout-ms),
+ * 시작할때 replica에 접속이 안돼도 애플리케이션은 떠야 하므로 initializationFailTimeout=-1(접속은 헬스 체크가 다시 시도)
+ */
+@Configuration
+@ConditionalOnProperty(name = "jpashop.datasource.routing.enabled", havingValue = "true")
+public class RoutingDataSourceConfig {
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(
+            DataSourceProperties properties, Environment environment, MeterRegistry meterRegistry,
+            @Value("${jpashop.datasource.replica-urls}") List<String> replicaUrls,
+            @Value("${jpashop.datasource.replica-username:}") String replicaUsername,
+            @Value("${jpashop.datasource.replica-password:}") String replicaPassword,
+            @Value("${jpashop.datasource.balance:ROUND_ROBIN}") ReplicaRoutingDataSource.Balance balance,
+            @Value("${jpashop.datasource.read-your-writes-ms:1000}") long readYourWritesMs,
+            @Value("${jpashop.datasource.replica-connection-timeout-ms:300}") long replicaConnectionTimeoutMs,
+            @Value("${jpashop.datasource.health-check-interval-ms:5000}") long healthCheckIntervalMs,
+            @Value("${jpashop.datasource.health-check-timeout-ms:1000}") long healthCheckTimeoutMs) {
+        MicrometerMetricsTrackerFactory metrics = new MicrometerMetricsTrackerFactory(meterRegistry);
+
+        HikariConfig primary = poolConfig(environment, "primary", metrics);
+        primary.setJdbcUrl(properties.determineUrl());
+        primary.setUsername(properties.determineUsername());
+        primary.setPassword(properties.determinePassword());
+        primary.setDriverClassName(properties.determineDriverClassName());
+
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            HikariConfig replica = poolConfig(environment, "replica-" + (i + 1), metrics);
+            replica.setJdbcUrl(replicaUrls.get(i).trim());
+            replica.setUsername(replicaUsername.isEmpty() ? primary.getUsername() : replicaUsername);
+            replica.setPassword(replicaUsername.isEmpty() ? primary.getPassword() : replicaPassword);
+            replica.setDriverClassName(primary.getDriverClassName());
+            replica.setReadOnly(true);
+            replica.setConnectionTimeout(replicaConnectionTimeoutMs);
+            replica.setInitializationFailTimeout(-1);
+            replicas.add(new HikariDataSource(replica));
+        }
+
+        return new ReplicaRoutingDataSource(new HikariDataSource(primary), replicas, balance,
+                new ReadYourWrites(Duration.ofMillis(readYourWritesMs)), meterRegistry,
+                Duration.ofMillis(healthCheckIntervalMs), Duration.ofMillis(healthCheckTimeoutMs));
+    }
+
+    /**
+     * JPA가 쓰는 DataSource, 트랜잭션 시작이 아니라 첫 SQL 때 커넥션을 얻어야 readOnly 여부로 고를 수 있음
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    private static HikariConfig poolConfig(Environment environment, String poolName,
+                                           MicrometerMetricsTrackerFactory metrics) {
+        HikariConfig config = new HikariConfig();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(config));
+        config.setPoolName(poolName);
+        config.setMetricsTrackerFactory(metrics);
+        return config;
+    }
+}
@@ -0,0 +1,10 @@
+package jpabook.jpashop.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+//@Scheduled 사용(상품 스냅샷 주기적 재구성 등)
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,44 @@
+package jpabook.jpashop.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 요청 하나가 실행한 SQL 수를 재고 budget을 넘으면 경고 로그
+ * 분포는 /actuator/metrics/http.request.statements 에서 uri별로 확인
+ */
+@Slf4j
+public class StatementBudgetInterceptor implements HandlerInterceptor {
+
+    private final MeterRegistry meterRegistry;
+    private final int budget;
+
+    public StatementBudgetInterceptor(MeterRegistry meterRegistry, int budget) {
+        this.meterRegistry = meterRegistry;
+        this.budget = budget;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        StatementCounter.start();
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        int statements = StatementCounter.stop();
+        DistributionSummary.builder("http.request.statements")
+                .tag("uri", request.getRequestURI())
+                .register(meterRegistry)
+                .record(statements);
+        if (statements > budget) {
+            log.warn("statement budget exceeded, uri={}, statements={}, budget={}",
+                    request.getRequestURI(), statements, budget);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package jpabook.jpashop.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * 현재 스레드에서 하이버네이트가 준비한 SQL 수를 셈
+ * start() ~ stop() 사이에 이 스레드가 실행한 문장만 세므로 다른 요청, 스케줄러와 섞이지 않음
+ * HibernateConfig에서 statement_inspector로 등록
+ */
+public class StatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<int[]> counter = new ThreadLocal<>();
+
+    public static void start() {
+        counter.set(new int[1]);
+    }
+
+    //start() 이후 문장 수, 세고 있지 않았으면 0
+    public static int stop() {
+        int[] count = counter.get();
+        counter.remove();
+        return count == null ? 0 : count[0];
+    }
+
+    @Override
+    public String inspect(String sql) {
+        int[] count = counter.get();
+        if (count != null) {
+            count[0]++;
+        }
+        return sql;
+    }
+}
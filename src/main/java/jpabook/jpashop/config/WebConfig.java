@@ -0,0 +1,28 @@
+package jpabook.jpashop.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    private final MeterRegistry meterRegistry;
+
+    //주문 한건에 허용하는 SQL 수, 회원 select 1 + 상품 select 1 + 재고 update 1 + insert 3(주문, 주문상품, 배송) + id 할당(시퀀스) 여유 1
+    @Value("${jpashop.order.statement-budget:7}")
+    private int orderStatementBudget;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        //주문 화면의 POST /order와 장바구니 주문 API만, 조회 /orders는 제외
+        registry.addInterceptor(new StatementBudgetInterceptor(meterRegistry, orderStatementBudget))
+                .addPathPatterns("/order", "/api/v1/orders");
+        //replica 라우팅에서 자기가 쓴 데이터는 primary에서 읽도록 요청한 클라이언트를 기록
+        registry.addInterceptor(new ReadYourWritesInterceptor());
+    }
+}
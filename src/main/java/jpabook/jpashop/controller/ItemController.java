@@ -1,8 +1,9 @@
 package jpabook.jpashop.controller;
 
 import jpabook.jpashop.domain.item.Book;
-import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.service.ItemCatalog;
 import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.ItemSummary;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -18,6 +19,7 @@ import java.util.List;
 public class ItemController {
 
     private final ItemService itemService;
+    private final ItemCatalog itemCatalog;
 
     @GetMapping("/items/new")
     public String createForm(Model model) {
@@ -41,7 +43,8 @@ public class ItemController {
 
     @GetMapping("/items")
     public String list(Model model) {
-        List<Item> items = itemService.findItems();
+        //DB 조회 없이 상품 스냅샷에서 바로
+        List<ItemSummary> items = itemCatalog.getItems();
         model.addAttribute("items", items);
         return "items/itemList";
     }
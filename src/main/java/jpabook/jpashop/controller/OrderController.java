@@ -1,36 +1,30 @@
 package jpabook.jpashop.controller;
 
-import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.domain.Order;
-import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.exception.InvalidRequestException;
+import jpabook.jpashop.repository.CursorPage;
 import jpabook.jpashop.repository.OrderSearch;
-import jpabook.jpashop.service.ItemService;
-import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.OptimisticLockOrderFacade;
 import jpabook.jpashop.service.OrderService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.util.UriComponentsBuilder;
 
-import java.util.List;
+import java.time.format.DateTimeFormatter;
 
 @Controller
 @RequiredArgsConstructor
 public class OrderController {
 
     private final OrderService orderService;
-    private final MemberService memberService;
-    private final ItemService itemService;
+    private final OptimisticLockOrderFacade orderFacade; //재고 충돌시 재시도
 
     //주문 홈페이지 들어왔을때
+    //회원, 상품은 목록 전체를 넘기지 않고 화면에서 자동완성 API(/api/typeahead/**)로 찾음
     @GetMapping("/order")
-    public String createForm(Model model) {
-
-        List<Member> members = memberService.findMembers();
-        List<Item> items = itemService.findItems();
-
-        model.addAttribute("members", members);
-        model.addAttribute("items", items);
+    public String createForm() {
 
         return "order/orderForm";
     }
@@ -41,16 +35,28 @@ public class OrderController {
                         @RequestParam("itemId") Long itemId,
                         @RequestParam("count") int count) {
 
-        orderService.order(memberId, itemId, count);
+        orderFacade.order(memberId, itemId, count);
 
         return "redirect:/orders";
     }
 
     //주문 내역 홈페이지 들어갔을때
+    //커서가 깨졌거나 정렬을 바꿔 커서와 안 맞으면 같은 검색 조건의 첫 페이지로 보냄
     @GetMapping("/orders")
     public String orderList(@ModelAttribute("orderSearch") OrderSearch orderSearch, Model model) {
-        List<Order> orders = orderService.findOrders(orderSearch);
-        model.addAttribute("orders", orders);
+        CursorPage<Order> page;
+        try {
+            page = orderService.findOrders(orderSearch);
+        } catch (InvalidRequestException e) {
+            if (orderSearch.getAfter() == null) {
+                throw e;
+            }
+            return "redirect:" + pageUrl(orderSearch, null);
+        }
+        model.addAttribute("orders", page.getContent());
+        if (page.getNextCursor() != null) {
+            model.addAttribute("nextUrl", pageUrl(orderSearch, page.getNextCursor()));
+        }
 
         return "order/orderList";
     }
@@ -58,7 +64,36 @@ public class OrderController {
     //주문 내역 리스트에서 취소버튼 눌렀을때
     @PostMapping("/orders/{orderId}/cancel")
     public String cancelOrder(@PathVariable("orderId") Long orderId) {
-        orderService.cancelOrder(orderId);
+        orderFacade.cancelOrder(orderId);
         return "redirect:/orders";
     }
+
+    //검색 조건을 모두 실어서 /orders 주소를 만듬, after만 바꿈
+    private static String pageUrl(OrderSearch orderSearch, String after) {
+        UriComponentsBuilder builder = UriComponentsBuilder.fromPath("/orders");
+        if (orderSearch.getMemberName() != null) {
+            builder.queryParam("memberName", orderSearch.getMemberName());
+        }
+        if (orderSearch.getOrderStatus() != null) {
+            builder.queryParam("orderStatus", orderSearch.getOrderStatus());
+        }
+        if (orderSearch.getFrom() != null) {
+            builder.queryParam("from", DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(orderSearch.getFrom()));
+        }
+        if (orderSearch.getTo() != null) {
+            builder.queryParam("to", DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(orderSearch.getTo()));
+        }
+        if (orderSearch.getItemId() != null) {
+            builder.queryParam("itemId", orderSearch.getItemId());
+        }
+        if (orderSearch.getMinTotal() != null) {
+            builder.queryParam("minTotal", orderSearch.getMinTotal());
+        }
+        builder.queryParam("sort", orderSearch.getSort());
+        builder.queryParam("limit", orderSearch.getLimit());
+        if (after != null) {
+            builder.queryParam("after", after);
+        }
+        return builder.encode().toUriString();
+    }
 }
@@ -0,0 +1,420 @@
+package jpabook.jpashop.datagen;
+
+import jpabook.jpashop.domain.DeliveryStatus;
+import jpabook.jpashop.domain.OrderStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 부하/용량 테스트용 합성 데이터 생성, datagen 프로파일에서만 켜짐(InitDb는 꺼짐)
+ * java -jar jpashop.jar --spring.profiles.active=datagen --jpashop.datagen.orders=2500000
+ * - 회원, 상품(Book/Album/Movie 각각 items-per-type개), 카테고리 트리(category-depth단계, 단계마다 category-fanout개씩)
+ * - 주문마다 배송 1개, 주문상품 1 ~ max-lines-per-order개(평균 (1 + max) / 2), 상품 인기는 Zipf 분포(zipf-skew)
+ * - JPA를 거치지 않고 JDBC 배치 insert(batch-size), 주문은 chunk-size건씩 writers개 스레드가 각자 트랜잭션으로 넣음
+ * - seed와 설정이 같으면 id까지 같은 데이터, 주문 i는 seed와 i로만 만든 난수를 쓰므로 스레드 실행 순서와 무관
+ * id는 id-offset부터 테이블별 구간을 나눠서 씀, hibernate_sequence(pooled)가 닿지 않을 만큼 큰 값이라
+ * 생성 후 애플리케이션이 넣는 데이터와 겹치지 않음(time 전략의 TimeOrderedIds 값보다는 작음)
+ * 주문 id와 주문시간이 같은 순서라 키셋 페이징(id 순)과 주문시간 범위 조회가 실제처럼 동작
+ */
+@Slf4j
+@Component
+@Profile("datagen")
+@RequiredArgsConstructor
+public class DataGenerator implements ApplicationRunner {
+
+    private static final String[] CITIES = {"서울", "부산", "대구", "인천", "광주", "대전", "울산", "진주"};
+    private static final String[] TYPES = {"B", "A", "M"}; //Book, Album, Movie 순서로 상품 id 구간을 나눔
+    private static final int MAX_COUNT = 3; //주문상품 하나의 최대 수량
+    private static final int DELIVERED_AFTER_DAYS = 3; //이보다 오래된 주문은 배송 완료
+
+    private final DataSource dataSource;
+
+    @Value("${jpashop.datagen.seed:42}")
+    private long seed;
+
+    @Value("${jpashop.datagen.id-offset:1000000000000}")
+    private long idOffset;
+
+    @Value("${jpashop.datagen.members:100000}")
+    private int members;
+
+    @Value("${jpashop.datagen.items-per-type:10000}")
+    private int itemsPerType;
+
+    @Value("${jpashop.datagen.category-depth:3}")
+    private int categoryDepth;
+
+    @Value("${jpashop.datagen.category-fanout:6}")
+    private int categoryFanout;
+
+    @Value("${jpashop.datagen.orders:2500000}")
+    private int orders;
+
+    @Value("${jpashop.datagen.max-lines-per-order:7}")
+    private int maxLinesPerOrder;
+
+    @Value("${jpashop.datagen.zipf-skew:1.0}")
+    private double zipfSkew;
+
+    @Value("${jpashop.datagen.cancel-percent:10}")
+    private int cancelPercent;
+
+    //주문시간은 start-date부터 days일 동안 고르게, 재현되도록 현재 시간은 쓰지 않음
+    @Value("${jpashop.datagen.start-date:2021-01-01T00:00:00}")
+    private String startDate;
+
+    @Value("${jpashop.datagen.days:365}")
+    private int days;
+
+    @Value("${jpashop.datagen.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${jpashop.datagen.chunk-size:10000}")
+    private int chunkSize;
+
+    @Value("${jpashop.datagen.writers:4}")
+    private int writers;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        generate(idOffset);
+    }
+
+    /**
+     * 회원, 상품, 카테고리는 한 스레드에서 먼저 커밋하고(주문이 참조하므로) 주문은 청크별로 동시에
+     * @return 넣은 주문상품 수
+     */
+    public long generate(long idOffset) {
+        if (members < 1 || itemsPerType < 1 || categoryDepth < 1 || categoryFanout < 1 || maxLinesPerOrder < 1) {
+            throw new IllegalArgumentException("회원, 상품, 카테고리 단계/개수, 주문당 주문상품 수는 1 이상이어야 합니다.");
+        }
+
+        long started = System.nanoTime();
+        Layout layout = new Layout(idOffset);
+        Random random = new Random(seed);
+
+        inTransaction(con -> insertMembers(con, layout, random));
+        int[] prices = inTransaction(con -> insertItems(con, layout, random));
+        inTransaction(con -> insertCategories(con, layout, random));
+
+        //인기 순위 -> 상품, 인기 상품이 한 종류에 몰리지 않게 섞음
+        List<Integer> ranking = new ArrayList<>(layout.itemCount);
+        for (int i = 0; i < layout.itemCount; i++) {
+            ranking.add(i);
+        }
+        Collections.shuffle(ranking, random);
+        int[] rankToItem = ranking.stream().mapToInt(Integer::intValue).toArray();
+        ZipfSampler popularity = new ZipfSampler(layout.itemCount, zipfSkew);
+
+        long lines = insertOrdersInParallel(layout, prices, rankToItem, popularity);
+
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+        log.info("datagen members={} items={} categories={} orders={} lines={} elapsedMs={} lines/s={}",
+                members, layout.itemCount, layout.categoryCount, orders, lines, elapsedMs,
+                elapsedMs == 0 ? lines : lines * 1000 / elapsedMs);
+        return lines;
+    }
+
+    private Void insertMembers(Connection con, Layout layout, Random random) throws SQLException {
+        try (PreparedStatement ps = con.prepareStatement(
+                "insert into member (member_id, version, name, city, street, zipcode) values (?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < members; i++) {
+                ps.setLong(1, layout.memberBase + i);
+                ps.setLong(2, 0);
+                ps.setString(3, "member" + i);
+                ps.setString(4, CITIES[random.nextInt(CITIES.length)]);
+                ps.setString(5, "street-" + random.nextInt(1000));
+                ps.setString(6, String.format("%05d", random.nextInt(100000)));
+                addBatch(ps, i);
+            }
+            ps.executeBatch();
+        }
+        return null;
+    }
+
+    //주문상품 가격으로 쓰도록 상품별 가격을 돌려줌
+    private int[] insertItems(Connection con, Layout layout, Random random) throws SQLException {
+        int[] prices = new int[layout.itemCount];
+        try (PreparedStatement ps = con.prepareStatement(
+                "insert into item (dtype, item_id, version, sku, name, price, stock_quantity, author, isbn, artist, etc, director, actor)" +
+                        " values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < layout.itemCount; i++) {
+                String type = TYPES[i / itemsPerType];
+                long itemId = layout.itemBase + i;
+                prices[i] = (10 + random.nextInt(491)) * 100;
+
+                ps.setString(1, type);
+                ps.setLong(2, itemId);
+                ps.setLong(3, 0);
+                ps.setString(4, "DG-" + itemId);
+                ps.setString(5, type + "-item" + i);
+                ps.setInt(6, prices[i]);
+                ps.setInt(7, 100 + random.nextInt(9901));
+                for (int column = 8; column <= 13; column++) {
+                    ps.setNull(column, Types.VARCHAR);
+                }
+                int person = random.nextInt(1000);
+                switch (type) {
+                    case "B":
+                        ps.setString(8, "author" + person);
+                        ps.setString(9, String.format("979%010d", random.nextInt(1_000_000_000)));
+                        break;
+                    case "A":
+                        ps.setString(10, "artist" + person);
+                        ps.setString(11, "etc" + random.nextInt(10));
+                        break;
+                    default:
+                        ps.setString(12, "director" + person);
+                        ps.setString(13, "actor" + random.nextInt(1000));
+                }
+                addBatch(ps, i);
+            }
+            ps.executeBatch();
+        }
+        return prices;
+    }
+
+    /**
+     * 단계별로 부모가 먼저 들어가도록 넓이 우선 순서로 넣고, 상품은 마지막 단계(리프) 카테고리 하나에 연결
+     */
+    private Void insertCategories(Connection con, Layout layout, Random random) throws SQLException {
+        int levelStart = 0;
+        int levelSize = categoryFanout;
+        try (PreparedStatement ps = con.prepareStatement(
+                "insert into category (category_id, name, parent_id) values (?, ?, ?)")) {
+            int index = 0;
+            for (int depth = 1; depth <= categoryDepth; depth++) {
+                for (int i = 0; i < levelSize; i++, index++) {
+                    ps.setLong(1, layout.categoryBase + index);
+                    ps.setString(2, "category-" + depth + "-" + i);
+                    if (depth == 1) {
+                        ps.setNull(3, Types.BIGINT);
+                    } else {
+                        ps.setLong(3, layout.categoryBase + levelStart - levelSize / categoryFanout + i / categoryFanout);
+                    }
+                    addBatch(ps, index);
+                }
+                levelStart += levelSize;
+                levelSize *= categoryFanout;
+            }
+            ps.executeBatch();
+        }
+
+        int leafCount = levelSize / categoryFanout;
+        int leafStart = levelStart - leafCount;
+        try (PreparedStatement ps = con.prepareStatement(
+                "insert into category_item (category_id, item_id) values (?, ?)")) {
+            for (int i = 0; i < layout.itemCount; i++) {
+                ps.setLong(1, layout.categoryBase + leafStart + random.nextInt(leafCount));
+                ps.setLong(2, layout.itemBase + i);
+                addBatch(ps, i);
+            }
+            ps.executeBatch();
+        }
+        return null;
+    }
+
+    private long insertOrdersInParallel(Layout layout, int[] prices, int[] rankToItem, ZipfSampler popularity) {
+        ExecutorService pool = Executors.newFixedThreadPool(writers, new CustomizableThreadFactory("datagen-"));
+        try {
+            List<Future<Long>> futures = new ArrayList<>();
+            for (int from = 0; from < orders; from += chunkSize) {
+                int start = from;
+                int end = Math.min(from + chunkSize, orders);
+                futures.add(pool.submit(() -> inTransaction(
+                        con -> insertOrders(con, layout, prices, rankToItem, popularity, start, end))));
+            }
+
+            long lines = 0;
+            for (int i = 0; i < futures.size(); i++) {
+                lines += await(futures.get(i));
+                if ((i + 1) % 10 == 0 || i == futures.size() - 1) {
+                    log.info("datagen orders {}/{} lines={}", Math.min((long) (i + 1) * chunkSize, orders), orders, lines);
+                }
+            }
+            return lines;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * 주문 [from, to) 를 한 트랜잭션으로, batch-size건마다 배송 -> 주문 -> 주문상품 순서로 배치 실행(FK 순서)
+     */
+    private long insertOrders(Connection con, Layout layout, int[] prices, int[] rankToItem, ZipfSampler popularity,
+                              int from, int to) throws SQLException {
+        LocalDateTime start = LocalDateTime.parse(startDate);
+        long windowSeconds = days * 86_400L;
+        LocalDateTime deliveredBefore = start.plusDays(days).minusDays(DELIVERED_AFTER_DAYS);
+        int linesPerOrder = Math.min(maxLinesPerOrder, layout.itemCount);
+        int[] picked = new int[linesPerOrder];
+        long lines = 0;
+
+        try (PreparedStatement delivery = con.prepareStatement(
+                "insert into delivery (delivery_id, city, street, zipcode, status) values (?, ?, ?, ?, ?)");
+             PreparedStatement order = con.prepareStatement(
+                     "insert into orders (order_id, member_id, delivery_id, order_date, status) values (?, ?, ?, ?, ?)");
+             PreparedStatement orderItem = con.prepareStatement(
+                     "insert into order_item (order_item_id, item_id, order_id, order_price, count) values (?, ?, ?, ?, ?)")) {
+
+            for (int i = from; i < to; i++) {
+                SplittableRandom random = new SplittableRandom(seed ^ (i * 0x9E3779B97F4A7C15L));
+                long orderId = layout.orderBase + i;
+                long deliveryId = layout.deliveryBase + i;
+                LocalDateTime orderDate = start.plusSeconds(i * windowSeconds / orders);
+                boolean canceled = random.nextInt(100) < cancelPercent;
+
+                delivery.setLong(1, deliveryId);
+                delivery.setString(2, CITIES[random.nextInt(CITIES.length)]);
+                delivery.setString(3, "street-" + random.nextInt(1000));
+                delivery.setString(4, String.format("%05d", random.nextInt(100000)));
+                delivery.setString(5, (!canceled && orderDate.isBefore(deliveredBefore) ? DeliveryStatus.COMP : DeliveryStatus.READY).name());
+                delivery.addBatch();
+
+                order.setLong(1, orderId);
+                order.setLong(2, layout.memberBase + random.nextInt(members));
+                order.setLong(3, deliveryId);
+                order.setTimestamp(4, Timestamp.valueOf(orderDate));
+                order.setString(5, (canceled ? OrderStatus.CANCEL : OrderStatus.ORDER).name());
+                order.addBatch();
+
+                //한 주문에 같은 상품은 한번만
+                int lineCount = 1 + random.nextInt(linesPerOrder);
+                for (int j = 0; j < lineCount; j++) {
+                    int item;
+                    do {
+                        item = rankToItem[popularity.next(random)];
+                    } while (contains(picked, j, item));
+                    picked[j] = item;
+
+                    orderItem.setLong(1, layout.lineBase + (long) i * maxLinesPerOrder + j);
+                    orderItem.setLong(2, layout.itemBase + item);
+                    orderItem.setLong(3, orderId);
+                    orderItem.setInt(4, prices[item]);
+                    orderItem.setInt(5, 1 + random.nextInt(MAX_COUNT));
+                    orderItem.addBatch();
+                }
+                lines += lineCount;
+
+                if ((i - from + 1) % batchSize == 0) {
+                    executeBatches(delivery, order, orderItem);
+                }
+            }
+            executeBatches(delivery, order, orderItem);
+        }
+        return lines;
+    }
+
+    private static boolean contains(int[] picked, int size, int item) {
+        for (int k = 0; k < size; k++) {
+            if (picked[k] == item) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void executeBatches(PreparedStatement... statements) throws SQLException {
+        for (PreparedStatement statement : statements) {
+            statement.executeBatch();
+        }
+    }
+
+    private void addBatch(PreparedStatement ps, int index) throws SQLException {
+        ps.addBatch();
+        if ((index + 1) % batchSize == 0) {
+            ps.executeBatch();
+        }
+    }
+
+    private <T> T inTransaction(SqlWork<T> work) {
+        try (Connection con = dataSource.getConnection()) {
+            con.setAutoCommit(false);
+            try {
+                T result = work.run(con);
+                con.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                con.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("데이터 생성 실패", e);
+        }
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("데이터 생성 중 인터럽트", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("데이터 생성 실패", e.getCause());
+        }
+    }
+
+    private interface SqlWork<T> {
+        T run(Connection con) throws SQLException;
+    }
+
+    /**
+     * 테이블별 id 구간, 모두 idOffset부터 이어서
+     * 주문상품은 주문 i마다 max-lines-per-order칸을 잡아두므로 빈 id가 생김
+     */
+    private class Layout {
+
+        private final long memberBase;
+        private final long itemBase;
+        private final int itemCount;
+        private final long categoryBase;
+        private final int categoryCount;
+        private final long deliveryBase;
+        private final long orderBase;
+        private final long lineBase;
+
+        Layout(long idOffset) {
+            itemCount = itemsPerType * TYPES.length;
+            int count = 0;
+            int levelSize = 1;
+            for (int depth = 1; depth <= categoryDepth; depth++) {
+                levelSize *= categoryFanout;
+                count += levelSize;
+            }
+            categoryCount = count;
+
+            memberBase = idOffset;
+            itemBase = memberBase + members;
+            categoryBase = itemBase + itemCount;
+            deliveryBase = categoryBase + categoryCount;
+            orderBase = deliveryBase + orders;
+            lineBase = orderBase + orders;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package jpabook.jpashop.datagen;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * 0 ~ size-1 순위를 Zipf 분포로 뽑음, 순위 r(0부터)이 뽑힐 확률은 1 / (r + 1)^skew 에 비례
+ * skew가 1이면 상품 1만개 중 상위 1%가 주문의 절반 가까이를 차지, 0이면 균등
+ * 누적 분포를 미리 만들어두고 이진 탐색, 만든 뒤에는 읽기만 하므로 여러 스레드에서 같이 써도 됨
+ */
+class ZipfSampler {
+
+    private final double[] cdf;
+
+    ZipfSampler(int size, double skew) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size는 1 이상이어야 합니다: " + size);
+        }
+        cdf = new double[size];
+        double sum = 0;
+        for (int r = 0; r < size; r++) {
+            sum += 1.0 / Math.pow(r + 1, skew);
+            cdf[r] = sum;
+        }
+        for (int r = 0; r < size; r++) {
+            cdf[r] /= sum;
+        }
+    }
+
+    int next(SplittableRandom random) {
+        int r = Arrays.binarySearch(cdf, random.nextDouble());
+        int rank = r >= 0 ? r : -r - 1;
+        return Math.min(rank, cdf.length - 1);
+    }
+}
@@ -1,8 +1,12 @@
 package jpabook.jpashop.domain;
 
+import jpabook.jpashop.domain.id.JpashopIdGenerator;
 import jpabook.jpashop.domain.item.Item;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.*;
 import java.util.ArrayList;
@@ -10,11 +14,14 @@ import java.util.List;
 
 import static javax.persistence.FetchType.*;
 
+//카테고리는 거의 안바뀌고 잠깐 옛날 값이 보여도 괜찮으므로 NONSTRICT_READ_WRITE(락 없이 수정시 무효화만)
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE, region = "category")
 @Entity
 @Getter @Setter
 public class Category {
 
-    @Id @GeneratedValue
+    @Id @GeneratedValue(generator = JpashopIdGenerator.NAME)
+    @GenericGenerator(name = JpashopIdGenerator.NAME, strategy = JpashopIdGenerator.STRATEGY)
     @Column(name = "category_id")
     private Long id;
 
@@ -30,6 +37,7 @@ public class Category {
     @JoinColumn(name = "parent_id")
     private Category parent;
 
+    @Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE, region = "category-child")
     @OneToMany(mappedBy = "parent")
     private List<Category> child = new ArrayList<>();
 
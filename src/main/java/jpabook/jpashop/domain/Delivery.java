@@ -1,8 +1,10 @@
 package jpabook.jpashop.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import jpabook.jpashop.domain.id.JpashopIdGenerator;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.*;
 
@@ -12,7 +14,8 @@ import static javax.persistence.FetchType.*;
 @Getter @Setter
 public class Delivery {
 
-    @Id @GeneratedValue
+    @Id @GeneratedValue(generator = JpashopIdGenerator.NAME)
+    @GenericGenerator(name = JpashopIdGenerator.NAME, strategy = JpashopIdGenerator.STRATEGY)
     @Column(name = "delivery_id")
     private Long id;
 
@@ -1,15 +1,26 @@
 package jpabook.jpashop.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import jpabook.jpashop.domain.id.JpashopIdGenerator;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotEmpty;
 import java.util.ArrayList;
 import java.util.List;
 
+//주문할때마다 회원을 id로 조회하므로 2차 캐시, 회원 정보 수정이 있으므로 READ_WRITE
+//orders 컬렉션은 캐시하지 않음
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "member")
 @Entity
+@DynamicUpdate //update에 바뀐 컬럼만
+//주문 검색의 회원명 앞부분 일치(like '홍%')용
+@Table(indexes = @Index(name = "idx_member_name", columnList = "name"))
 @Getter @Setter
 @NamedQueries( {
         @NamedQuery(name = "Member.findByUsername", query = "select m from Member m where m.username = :username"),
@@ -17,10 +28,15 @@ import java.util.List;
 )
 public class Member {
 
-    @Id @GeneratedValue
+    @Id @GeneratedValue(generator = JpashopIdGenerator.NAME)
+    @GenericGenerator(name = JpashopIdGenerator.NAME, strategy = JpashopIdGenerator.STRATEGY)
     @Column(name = "member_id")
     private Long id;
 
+    //부분 수정(MemberPatch)에서 다른 요청의 수정을 덮어쓰지 않게
+    @Version
+    private Long version;
+
     //무조건 값이 있어야하는
 //    @NotEmpty
     private String name;
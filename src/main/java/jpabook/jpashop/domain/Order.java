@@ -1,11 +1,14 @@
 package jpabook.jpashop.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import jpabook.jpashop.domain.id.JpashopIdGenerator;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.Hibernate;
 import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
@@ -15,12 +18,14 @@ import java.util.List;
 import static javax.persistence.FetchType.*;
 
 @Entity
-@Table(name = "orders")
+//주문시간 정렬 + 키셋 페이징용, (order_date, order_id) 순서로 찾아 내려감
+@Table(name = "orders", indexes = @Index(name = "idx_orders_order_date", columnList = "order_date, order_id"))
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 public class Order {
 
-    @Id @GeneratedValue
+    @Id @GeneratedValue(generator = JpashopIdGenerator.NAME)
+    @GenericGenerator(name = JpashopIdGenerator.NAME, strategy = JpashopIdGenerator.STRATEGY)
     @Column(name = "order_id")
     private Long id;
 
@@ -37,15 +42,20 @@ public class Order {
     @JoinColumn(name = "delivery_id")
     private Delivery delivery;
 
+    @Column(name = "order_date")
     private LocalDateTime orderDate; //주문시간
 
     @Enumerated(EnumType.STRING)
     private OrderStatus status; //주문상태 [ORDER, CANCEL]
 
     //==연관관계 메서드==//
+    //회원의 주문 목록이 이미 메모리에 있을때만 맞춰줌
+    //아직 안읽었으면(프록시거나 지연 컬렉션) 건드리지 않음, 나중에 읽을때 DB에서 이 주문까지 같이 읽힘
     public void setMember(Member member) {
         this.member = member;
-        member.getOrders().add(this);
+        if (Hibernate.isInitialized(member) && Hibernate.isInitialized(member.getOrders())) {
+            member.getOrders().add(this);
+        }
     }
 
     public void addOrderItem(OrderItem orderItem) {
@@ -53,6 +63,7 @@ public class Order {
         orderItem.setOrder(this);
     }
 
+    //배송은 주문과 함께 새로 만든 객체라 반대편을 채워도 조회가 일어나지 않음
     public void setDelivery(Delivery delivery) {
         this.delivery = delivery;
         delivery.setOrder(this);
@@ -79,14 +90,21 @@ public class Order {
      * 주문 취소
      */
     public void cancel() {
+        markCanceled();
+        for (OrderItem orderItem : orderItems) {
+            orderItem.cancel();
+        }
+    }
+
+    /**
+     * 상태만 취소로, 재고는 호출하는 쪽에서 돌려줌(StockLedger)
+     */
+    public void markCanceled() {
         if (delivery.getStatus() == DeliveryStatus.COMP) {
             throw new IllegalStateException("이미 배송완료된 상품은 취소가 불가능합니다.");
         }
 
         this.setStatus(OrderStatus.CANCEL);
-        for (OrderItem orderItem : orderItems) {
-            orderItem.cancel();
-        }
     }
 
     //==조회 로직==//
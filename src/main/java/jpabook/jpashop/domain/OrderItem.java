@@ -1,11 +1,13 @@
 package jpabook.jpashop.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import jpabook.jpashop.domain.id.JpashopIdGenerator;
 import jpabook.jpashop.domain.item.Item;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.*;
 
@@ -16,7 +18,8 @@ import static javax.persistence.FetchType.*;
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 public class OrderItem {
 
-    @Id @GeneratedValue
+    @Id @GeneratedValue(generator = JpashopIdGenerator.NAME)
+    @GenericGenerator(name = JpashopIdGenerator.NAME, strategy = JpashopIdGenerator.STRATEGY)
     @Column(name = "order_item_id")
     private Long id;
 
@@ -43,6 +46,17 @@ public class OrderItem {
         return orderItem;
     }
 
+    /**
+     * 재고는 이미 따로 차감한 경우(ItemRepository.decreaseStock), 엔티티 재고는 건드리지 않음
+     */
+    public static OrderItem createReservedOrderItem(Item item, int orderPrice, int count) {
+        OrderItem orderItem = new OrderItem();
+        orderItem.setItem(item);
+        orderItem.setOrderPrice(orderPrice);
+        orderItem.setCount(count);
+        return orderItem;
+    }
+
     //==비즈니스 로직==//
     public void cancel() {
         getItem().addStock(count);
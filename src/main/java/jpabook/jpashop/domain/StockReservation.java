@@ -0,0 +1,37 @@
+package jpabook.jpashop.domain;
+
+import jpabook.jpashop.domain.id.JpashopIdGenerator;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.GenericGenerator;
+
+import javax.persistence.*;
+
+/**
+ * 재고 예약 기록(StockLedger)
+ * 주문 트랜잭션에서는 item 행을 수정하지 않고 이 테이블에 insert만 함, 같은 상품 주문끼리 행 락을 다투지 않음
+ * 주기적으로 상품별로 합산해서 item.stock_quantity에 반영하고 지움
+ * 반영 전 재고 = item.stock_quantity - sum(quantity), 재시작해도 여기서 다시 계산
+ */
+@Entity
+@Table(name = "stock_reservation", indexes = @Index(name = "idx_stock_reservation_item", columnList = "item_id"))
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class StockReservation {
+
+    @Id @GeneratedValue(generator = JpashopIdGenerator.NAME)
+    @GenericGenerator(name = JpashopIdGenerator.NAME, strategy = JpashopIdGenerator.STRATEGY)
+    @Column(name = "stock_reservation_id")
+    private Long id;
+
+    @Column(name = "item_id", nullable = false)
+    private Long itemId; //item 행을 읽지 않도록 연관관계 대신 id만
+
+    private int quantity; //예약이면 +, 취소로 돌려주면 -
+
+    public StockReservation(Long itemId, int quantity) {
+        this.itemId = itemId;
+        this.quantity = quantity;
+    }
+}
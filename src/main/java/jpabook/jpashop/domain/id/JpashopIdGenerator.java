@@ -0,0 +1,63 @@
+package jpabook.jpashop.domain.id;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * 모든 엔티티 id 생성기, spring.jpa.properties.jpashop.id.* 로 설정
+ * - pooled(기본): 기존 hibernate_sequence를 그대로 쓰되 allocation-size개씩 한번에 받아서(pooled-lo) 메모리에서 나눠줌
+ *   insert마다 시퀀스(MySQL은 hibernate_sequence 테이블)를 다녀오지 않으므로 insert가 JDBC 배치로 묶임
+ *   기존 값 다음부터 받으므로 기존 데이터와 겹치지 않음
+ * - time: TimeOrderedIds, DB를 전혀 거치지 않음, 노드마다 jpashop.id.node-id를 다르게
+ *   기존 시퀀스 값보다 훨씬 큰 값이라 pooled로 돌아가도 겹치지는 않지만 그 사이 id 순서는 시간순이 아님
+ */
+public class JpashopIdGenerator extends SequenceStyleGenerator {
+
+    public static final String NAME = "jpashop_id";
+    public static final String STRATEGY = "jpabook.jpashop.domain.id.JpashopIdGenerator";
+
+    static final String STRATEGY_SETTING = "jpashop.id.strategy";
+    static final String ALLOCATION_SIZE_SETTING = "jpashop.id.allocation-size";
+    static final String NODE_ID_SETTING = "jpashop.id.node-id";
+
+    private static volatile TimeOrderedIds timeOrderedIds; //엔티티마다 생성기가 따로 만들어지므로 노드 하나에 하나
+
+    private boolean timeOrdered;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        Map<?, ?> settings = serviceRegistry.getService(ConfigurationService.class).getSettings();
+        timeOrdered = "time".equalsIgnoreCase(ConfigurationHelper.getString(STRATEGY_SETTING, settings, "pooled"));
+        if (timeOrdered) {
+            initTimeOrderedIds(ConfigurationHelper.getInt(NODE_ID_SETTING, settings, 0));
+        }
+
+        //시퀀스 이름은 기본값(hibernate_sequence) 그대로, 기존 데이터가 쓰던 시퀀스
+        params.setProperty(INCREMENT_PARAM, String.valueOf(ConfigurationHelper.getInt(ALLOCATION_SIZE_SETTING, settings, 1000)));
+        params.setProperty(OPT_PARAM, "pooled-lo");
+        super.configure(type, params, serviceRegistry);
+    }
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) {
+        if (timeOrdered) {
+            return timeOrderedIds.next();
+        }
+        return super.generate(session, object);
+    }
+
+    private static synchronized void initTimeOrderedIds(int nodeId) {
+        if (timeOrderedIds == null) {
+            timeOrderedIds = new TimeOrderedIds(nodeId);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package jpabook.jpashop.domain.id;
+
+import java.time.Instant;
+
+/**
+ * DB를 거치지 않는 시간순 id
+ * [41비트: 2021-01-01부터 지난 ms][4비트: 노드 번호][8비트: 같은 ms 안의 순번] = 53비트
+ * long(64비트)이지만 53비트 안에 두어서 JSON으로 내려가도 자바스크립트 number로 정확히 표현됨
+ * 노드(서버)당 ms마다 256개, 다 쓰면 다음 ms를 미리 당겨씀
+ * 시계가 뒤로 가도 마지막으로 쓴 ms보다 작아지지 않으므로 id는 항상 증가
+ */
+public final class TimeOrderedIds {
+
+    static final long EPOCH_MS = Instant.parse("2021-01-01T00:00:00Z").toEpochMilli();
+    static final int NODE_BITS = 4;
+    static final int SEQUENCE_BITS = 8;
+    static final int MAX_NODE = (1 << NODE_BITS) - 1;
+    private static final int MAX_SEQUENCE = (1 << SEQUENCE_BITS) - 1;
+
+    private final long node;
+    private long lastMs = -1;
+    private int sequence;
+
+    public TimeOrderedIds(int node) {
+        if (node < 0 || node > MAX_NODE) {
+            throw new IllegalArgumentException("노드 번호는 0~" + MAX_NODE + " 입니다: " + node);
+        }
+        this.node = node;
+    }
+
+    public synchronized long next() {
+        long now = System.currentTimeMillis() - EPOCH_MS;
+        if (now > lastMs) {
+            lastMs = now;
+            sequence = 0;
+        } else if (++sequence > MAX_SEQUENCE) {
+            lastMs++;
+            sequence = 0;
+        }
+        return (lastMs << (NODE_BITS + SEQUENCE_BITS)) | (node << SEQUENCE_BITS) | sequence;
+    }
+}
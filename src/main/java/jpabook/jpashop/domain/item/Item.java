@@ -1,10 +1,15 @@
 package jpabook.jpashop.domain.item;
 
 import jpabook.jpashop.domain.Category;
+import jpabook.jpashop.domain.id.JpashopIdGenerator;
 import jpabook.jpashop.exception.NotEnoughStockException;
 import lombok.Getter;
 import lombok.Setter;
 import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.*;
 import java.util.ArrayList;
@@ -12,21 +17,37 @@ import java.util.List;
 
 //toOne관게에선 클래스에다가, orderItem기준
 //@BatchSize(size = 100)
+//2차 캐시, 재고가 주문마다 바뀌므로 READ_WRITE(수정 중인 항목은 캐시를 안쓰고 DB에서 읽음)
+//상속 구조는 루트에만 걸면 Book, Album, Movie가 같은 리전을 씀
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "item")
+//update에 바뀐 컬럼만(하위 클래스에도 각각 붙임), 부분 수정에서 안바뀐 컬럼을 다시 쓰지 않게
 @Entity
+@DynamicUpdate
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_item_sku", columnNames = "sku"))
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE)
 @DiscriminatorColumn(name = "dtype")
 @Getter @Setter
 public abstract class Item {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = JpashopIdGenerator.NAME)
+    @GenericGenerator(name = JpashopIdGenerator.NAME, strategy = JpashopIdGenerator.STRATEGY)
     @Column(name = "item_id")
     private Long id;
 
+    //낙관적 락, 동시에 같은 상품 재고를 바꾸면 나중에 커밋하는 쪽이 OptimisticLockException
+    //(update ... where item_id = ? and version = ?)
+    @Version
+    private Long version;
+
+    //공급사 상품 코드, 카탈로그 가져오기(CatalogImportJob)에서 같은 상품을 찾는 키, 화면에서 등록한 상품은 없음
+    private String sku;
+
     private String name;
     private int price;
     private int stockQuantity;
 
+    @Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE, region = "item-categories")
     @ManyToMany(mappedBy = "items")
     private List<Category> categories = new ArrayList<>();
 
@@ -0,0 +1,40 @@
+package jpabook.jpashop.event;
+
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 상품 정보나 재고가 바뀌었을때 발행
+ * 리스너는 @TransactionalEventListener로 받아서 커밋이 끝난 다음에만 반영
+ */
+@Getter
+public class ItemChangedEvent {
+
+    private final List<Long> itemIds;
+    private final boolean stockFlush; //StockLedger가 예약을 item 테이블에 반영한 것
+    private final boolean renamed; //이름이 바뀌었을 수 있음, 이름을 복사해둔 캐시(OrderViewCache)도 비워야 함
+
+    public ItemChangedEvent(Collection<Long> itemIds) {
+        this(itemIds, false, false);
+    }
+
+    private ItemChangedEvent(Collection<Long> itemIds, boolean stockFlush, boolean renamed) {
+        this.itemIds = List.copyOf(itemIds);
+        this.stockFlush = stockFlush;
+        this.renamed = renamed;
+    }
+
+    public static ItemChangedEvent of(Long itemId) {
+        return new ItemChangedEvent(List.of(itemId));
+    }
+
+    public static ItemChangedEvent stockFlushed(Collection<Long> itemIds) {
+        return new ItemChangedEvent(itemIds, true, false);
+    }
+
+    public static ItemChangedEvent renamed(Collection<Long> itemIds) {
+        return new ItemChangedEvent(itemIds, false, true);
+    }
+}
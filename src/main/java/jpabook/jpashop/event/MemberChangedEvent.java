@@ -0,0 +1,34 @@
+package jpabook.jpashop.event;
+
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 회원 가입, 이름 변경시 발행
+ * 리스너는 @TransactionalEventListener로 받아서 커밋이 끝난 다음에만 반영
+ */
+@Getter
+public class MemberChangedEvent {
+
+    private final List<Long> memberIds;
+    private final boolean renamed; //가입이 아닌 이름 변경, 이름을 복사해둔 캐시(OrderViewCache)도 비워야 함
+
+    public MemberChangedEvent(Collection<Long> memberIds) {
+        this(memberIds, false);
+    }
+
+    private MemberChangedEvent(Collection<Long> memberIds, boolean renamed) {
+        this.memberIds = List.copyOf(memberIds);
+        this.renamed = renamed;
+    }
+
+    public static MemberChangedEvent of(Long memberId) {
+        return new MemberChangedEvent(List.of(memberId));
+    }
+
+    public static MemberChangedEvent renamed(Long memberId) {
+        return new MemberChangedEvent(List.of(memberId), true);
+    }
+}
@@ -0,0 +1,24 @@
+package jpabook.jpashop.event;
+
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 주문이 생성, 취소 등으로 바뀌었을때 발행
+ * 리스너는 @TransactionalEventListener로 받아서 커밋이 끝난 다음에만 반영(캐시 무효화 등)
+ */
+@Getter
+public class OrderChangedEvent {
+
+    private final List<Long> orderIds;
+
+    public OrderChangedEvent(Collection<Long> orderIds) {
+        this.orderIds = List.copyOf(orderIds);
+    }
+
+    public static OrderChangedEvent of(Long orderId) {
+        return new OrderChangedEvent(List.of(orderId));
+    }
+}
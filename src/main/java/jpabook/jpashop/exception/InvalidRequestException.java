@@ -0,0 +1,25 @@
+package jpabook.jpashop.exception;
+
+/**
+ * 클라이언트가 보낸 값이 잘못된 요청, API에서는 400으로 응답
+ * 없는 엔티티를 가리키는 경우는 EntityNotFoundException(404)을 씀
+ */
+public class InvalidRequestException extends IllegalArgumentException {
+
+    public InvalidRequestException() {
+        super();
+    }
+
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+
+    public InvalidRequestException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public InvalidRequestException(Throwable cause) {
+        super(cause);
+    }
+
+}
@@ -0,0 +1,47 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.Category;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+@Repository
+@RequiredArgsConstructor
+public class CategoryRepository {
+
+    private final EntityManager em;
+
+    public void save(Category category) {
+        em.persist(category);
+    }
+
+    public Category findOne(Long id) {
+        return em.find(Category.class, id);
+    }
+
+    /**
+     * 카테고리와 모든 하위 카테고리 id, 깊이마다 IN 쿼리 한번(카테고리를 엔티티로 읽지 않음)
+     */
+    public Set<Long> findSubtreeIds(Long rootId) {
+        Set<Long> ids = new LinkedHashSet<>();
+        ids.add(rootId);
+        List<Long> level = List.of(rootId);
+        while (!level.isEmpty()) {
+            List<Long> children = em.createQuery("select c.id from Category c where c.parent.id in :ids", Long.class)
+                    .setParameter("ids", level)
+                    .getResultList();
+            level = new ArrayList<>();
+            for (Long child : children) {
+                if (ids.add(child)) { //부모 관계가 순환해도 멈추게
+                    level.add(child);
+                }
+            }
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,34 @@
+package jpabook.jpashop.repository;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 키셋 페이징 결과, 다음 페이지가 있으면 nextCursor에 마지막 주문 id를 감싼 커서
+ */
+@Getter
+public class CursorPage<T> {
+
+    private final List<T> content;
+    private final String nextCursor;
+
+    public CursorPage(List<T> content, String nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * limit + 1개를 조회해서 넘어온 결과로 페이지를 만듬
+     * limit보다 많이 왔으면 다음 페이지가 있다는 뜻, 한개 더 읽은건 잘라냄
+     */
+    public static <T> CursorPage<T> of(List<T> fetched, int limit, Function<T, Long> idOf) {
+        if (fetched.size() <= limit) {
+            return new CursorPage<>(fetched, null);
+        }
+        List<T> content = new ArrayList<>(fetched.subList(0, limit));
+        return new CursorPage<>(content, OrderCursor.encode(idOf.apply(content.get(limit - 1))));
+    }
+}
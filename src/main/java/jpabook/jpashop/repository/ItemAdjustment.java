@@ -0,0 +1,73 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.item.Album;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.domain.item.Movie;
+import jpabook.jpashop.exception.InvalidRequestException;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * 상품 가격/재고 일괄 조정 조건
+ * 대상은 categoryId(하위 카테고리 포함 여부 선택), itemType(BOOK, ALBUM, MOVIE), itemIds 중 하나
+ * 가격, 재고는 각각 더할 값(delta) 또는 정수 퍼센트(percent, 소수점 이하 버림) 중 하나, 결과가 0 밑으로 내려가지 않음
+ */
+@Getter @Setter
+public class ItemAdjustment {
+
+    private Long categoryId;
+    private boolean includeSubcategories = true;
+    private String itemType;
+    private List<Long> itemIds;
+
+    private Integer priceDelta;
+    private Integer pricePercent;
+    private Integer stockDelta;
+    private Integer stockPercent;
+
+    /**
+     * @throws InvalidRequestException 대상이 하나가 아니거나 바꿀 값이 없을때
+     */
+    public void validate() {
+        int targets = (categoryId != null ? 1 : 0) + (itemType != null ? 1 : 0)
+                + (itemIds != null && !itemIds.isEmpty() ? 1 : 0);
+        if (targets != 1) {
+            throw new InvalidRequestException("categoryId, itemType, itemIds 중 하나만 지정해야 합니다.");
+        }
+        if (priceDelta != null && pricePercent != null || stockDelta != null && stockPercent != null) {
+            throw new InvalidRequestException("delta와 percent를 함께 지정할 수 없습니다.");
+        }
+        if (priceDelta == null && pricePercent == null && stockDelta == null && stockPercent == null) {
+            throw new InvalidRequestException("바꿀 값이 없습니다.");
+        }
+        if (pricePercent != null && pricePercent < -100 || stockPercent != null && stockPercent < -100) {
+            throw new InvalidRequestException("percent는 -100 이상이어야 합니다.");
+        }
+        if (itemType != null) {
+            itemClass();
+        }
+    }
+
+    public boolean changesStock() {
+        return stockDelta != null || stockPercent != null;
+    }
+
+    public Class<? extends Item> itemClass() {
+        switch (itemType.toUpperCase()) {
+            case "B":
+            case "BOOK":
+                return Book.class;
+            case "A":
+            case "ALBUM":
+                return Album.class;
+            case "M":
+            case "MOVIE":
+                return Movie.class;
+            default:
+                throw new InvalidRequestException("알 수 없는 상품 종류입니다: " + itemType);
+        }
+    }
+}
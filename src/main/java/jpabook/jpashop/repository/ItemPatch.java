@@ -0,0 +1,86 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.item.Album;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.domain.item.Movie;
+import jpabook.jpashop.exception.InvalidRequestException;
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.validation.constraints.PositiveOrZero;
+
+/**
+ * 상품 부분 수정, null인 값은 그대로 둠
+ * version이 있으면 읽지 않고 update 한번(ItemRepository.patch), 없으면 읽고 바꾸기
+ * 책/앨범/영화 전용 값은 한 종류만 섞지 않고 보내야 함
+ */
+@Getter @Setter
+public class ItemPatch {
+
+    private Long version; //클라이언트가 마지막으로 본 버전
+
+    private String name;
+    @PositiveOrZero
+    private Integer price;
+    @PositiveOrZero
+    private Integer stockQuantity;
+
+    private String author;
+    private String isbn;
+    private String artist;
+    private String etc;
+    private String director;
+    private String actor;
+
+    /**
+     * 전용 값으로 정해지는 상품 종류, 공통 값만 있으면 Item
+     */
+    public Class<? extends Item> targetType() {
+        boolean book = author != null || isbn != null;
+        boolean album = artist != null || etc != null;
+        boolean movie = director != null || actor != null;
+        if ((book ? 1 : 0) + (album ? 1 : 0) + (movie ? 1 : 0) > 1) {
+            throw new InvalidRequestException("책, 앨범, 영화 값을 함께 바꿀 수 없습니다.");
+        }
+        return book ? Book.class : album ? Album.class : movie ? Movie.class : Item.class;
+    }
+
+    //읽어온 엔티티에 적용, @DynamicUpdate라 실제로 바뀐 컬럼만 update
+    public void applyTo(Item item) {
+        if (!targetType().isInstance(item)) {
+            throw new InvalidRequestException("상품 종류가 다릅니다: " + item.getId());
+        }
+        if (name != null) {
+            item.setName(name);
+        }
+        if (price != null) {
+            item.setPrice(price);
+        }
+        if (stockQuantity != null) {
+            item.setStockQuantity(stockQuantity);
+        }
+        if (item instanceof Book) {
+            if (author != null) {
+                ((Book) item).setAuthor(author);
+            }
+            if (isbn != null) {
+                ((Book) item).setIsbn(isbn);
+            }
+        } else if (item instanceof Album) {
+            if (artist != null) {
+                ((Album) item).setArtist(artist);
+            }
+            if (etc != null) {
+                ((Album) item).setEtc(etc);
+            }
+        } else if (item instanceof Movie) {
+            if (director != null) {
+                ((Movie) item).setDirector(director);
+            }
+            if (actor != null) {
+                ((Movie) item).setActor(actor);
+            }
+        }
+    }
+}
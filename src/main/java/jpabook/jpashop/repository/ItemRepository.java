@@ -2,9 +2,15 @@ package jpabook.jpashop.repository;
 
 import jpabook.jpashop.domain.item.Item;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.annotations.QueryHints;
+import org.hibernate.query.NativeQuery;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.DiscriminatorValue;
 import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import javax.persistence.TypedQuery;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -25,8 +31,197 @@ public class ItemRepository {
         return em.find(Item.class, id);
     }
 
+    public void flush() {
+        em.flush();
+    }
+
+    /**
+     * 부분 수정, 읽지 않고 patch.version이 같을 때만 바뀐 컬럼을 update
+     * 책/앨범/영화 전용 값이 있으면 dtype도 조건에 넣어서 다른 종류 상품은 안바뀜
+     * @return 바뀐 행 수, 0이면 상품이 없거나 version이 다르거나 종류가 다름
+     */
+    public int patch(Long id, ItemPatch patch) {
+        Class<? extends Item> type = patch.targetType();
+        VersionedUpdate update = new VersionedUpdate("item", "item_id")
+                .set("name", patch.getName())
+                .set("price", patch.getPrice())
+                .set("stock_quantity", patch.getStockQuantity())
+                .set("author", patch.getAuthor())
+                .set("isbn", patch.getIsbn())
+                .set("artist", patch.getArtist())
+                .set("etc", patch.getEtc())
+                .set("director", patch.getDirector())
+                .set("actor", patch.getActor());
+        if (type != Item.class) {
+            update.where("dtype", type.getAnnotation(DiscriminatorValue.class).value());
+        }
+        return update.execute(em, Item.class, id, patch.getVersion());
+    }
+
+    /**
+     * 조건부 재고 차감, 엔티티를 읽고 고치는 대신 DB에서 한번에
+     * 재고가 모자라면 아무 행도 안바뀌고 0 반환
+     * 벌크 연산이라 이미 읽어둔 엔티티의 재고는 그대로(다시 읽어야 반영)
+     * JPQL 벌크 update는 주문 한건마다 item 2차 캐시 리전 전체를 비우므로 네이티브 SQL로 실행하고 고친 행만 비움(VersionedUpdate와 같은 방식)
+     */
+    public int decreaseStock(Long itemId, int count) {
+        int updated = em.createNativeQuery(
+                "update item" +
+                        " set stock_quantity = stock_quantity - :count, version = version + 1" +
+                        " where item_id = :id and stock_quantity >= :count")
+                .setParameter("count", count)
+                .setParameter("id", itemId)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace(VersionedUpdate.QUERY_SPACE)
+                .executeUpdate();
+        if (updated > 0) {
+            VersionedUpdate.evict(em, Item.class, itemId);
+        }
+        return updated;
+    }
+
+    /**
+     * 재고 예약 반영(StockLedger), 재고 검사 없이 더하기만
+     * 반영 주기마다 불리므로 decreaseStock처럼 네이티브 SQL로 실행하고 고친 행만 비움, item 리전 전체를 비우지 않게
+     */
+    public int addStock(Long itemId, int delta) {
+        int updated = em.createNativeQuery(
+                "update item" +
+                        " set stock_quantity = stock_quantity + :delta, version = version + 1" +
+                        " where item_id = :id")
+                .setParameter("delta", delta)
+                .setParameter("id", itemId)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace(VersionedUpdate.QUERY_SPACE)
+                .executeUpdate();
+        if (updated > 0) {
+            VersionedUpdate.evict(em, Item.class, itemId);
+        }
+        return updated;
+    }
+
+    /**
+     * 취소된 주문들의 수량을 상품별로 합쳐서 update 한번으로 재고 복구
+     * JPQL은 set 절에 서브쿼리를 쓸 수 없어서 네이티브 SQL, Item만 동기화 대상으로 지정해서
+     * 하이버네이트가 2차 캐시 전체가 아니라 item 리전만 비우게 함
+     */
+    public int restoreStockOfOrders(Collection<Long> orderIds) {
+        return em.createNativeQuery(
+                "update item" +
+                        " set stock_quantity = stock_quantity + (select sum(oi.count) from order_item oi" +
+                        " where oi.item_id = item.item_id and oi.order_id in (:orderIds))," +
+                        " version = version + 1" +
+                        " where item_id in (select oi.item_id from order_item oi where oi.order_id in (:orderIds))")
+                .setParameter("orderIds", orderIds)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(Item.class)
+                .executeUpdate();
+    }
+
+    /**
+     * 일괄 조정 대상 id를 id 순으로 limit개씩(키셋), afterId 다음부터
+     * 카테고리는 category_item 조인, 종류는 dtype 조건
+     */
+    public List<Long> findAdjustmentTargetIds(ItemAdjustment adjustment, Collection<Long> categoryIds,
+                                              long afterId, int limit) {
+        TypedQuery<Long> query;
+        if (categoryIds != null) {
+            query = em.createQuery("select distinct i.id from Category c join c.items i" +
+                    " where c.id in :categoryIds and i.id > :afterId order by i.id", Long.class)
+                    .setParameter("categoryIds", categoryIds);
+        } else {
+            query = em.createQuery("select i.id from Item i" +
+                    " where type(i) = :type and i.id > :afterId order by i.id", Long.class)
+                    .setParameter("type", adjustment.itemClass());
+        }
+        return query.setParameter("afterId", afterId)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    public long countAdjustmentTargets(ItemAdjustment adjustment, Collection<Long> categoryIds) {
+        if (categoryIds != null) {
+            return em.createQuery("select count(distinct i.id) from Category c join c.items i" +
+                    " where c.id in :categoryIds", Long.class)
+                    .setParameter("categoryIds", categoryIds)
+                    .getSingleResult();
+        }
+        return em.createQuery("select count(i) from Item i where type(i) = :type", Long.class)
+                .setParameter("type", adjustment.itemClass())
+                .getSingleResult();
+    }
+
+    /**
+     * 가격/재고 일괄 조정, ids를 update 한번으로
+     * version도 올려서 읽어둔 엔티티로 수정하던 트랜잭션(주문 등)은 커밋할때 충돌로 알게 됨
+     * JPQL 벌크 연산이라 하이버네이트가 item 2차 캐시 리전을 비움
+     */
+    public int adjust(Collection<Long> ids, ItemAdjustment adjustment) {
+        StringBuilder jpql = new StringBuilder("update Item i set i.version = i.version + 1");
+        if (adjustment.getPriceDelta() != null) {
+            jpql.append(", i.price = ").append(clamped("cast(i.price as long) + :priceDelta"));
+        } else if (adjustment.getPricePercent() != null) {
+            jpql.append(", i.price = ").append(clamped("cast(i.price as long) + cast(i.price as long) * :pricePercent / 100"));
+        }
+        if (adjustment.getStockDelta() != null) {
+            jpql.append(", i.stockQuantity = ").append(clamped("cast(i.stockQuantity as long) + :stockDelta"));
+        } else if (adjustment.getStockPercent() != null) {
+            jpql.append(", i.stockQuantity = ")
+                    .append(clamped("cast(i.stockQuantity as long) + cast(i.stockQuantity as long) * :stockPercent / 100"));
+        }
+        jpql.append(" where i.id in :ids");
+
+        Query query = em.createQuery(jpql.toString()).setParameter("ids", ids);
+        if (adjustment.getPriceDelta() != null) {
+            query.setParameter("priceDelta", adjustment.getPriceDelta());
+        } else if (adjustment.getPricePercent() != null) {
+            query.setParameter("pricePercent", adjustment.getPricePercent());
+        }
+        if (adjustment.getStockDelta() != null) {
+            query.setParameter("stockDelta", adjustment.getStockDelta());
+        } else if (adjustment.getStockPercent() != null) {
+            query.setParameter("stockPercent", adjustment.getStockPercent());
+        }
+        return query.executeUpdate();
+    }
+
+    //int 컬럼에 percent를 곱하거나 delta를 더하면 넘칠 수 있으므로 long으로 계산하고 0 ~ Integer.MAX_VALUE로 자름
+    private static String clamped(String value) {
+        return "case when " + value + " < 0 then 0" +
+                " when " + value + " > " + Integer.MAX_VALUE + " then " + Integer.MAX_VALUE +
+                " else " + value + " end";
+    }
+
     public List<Item> findAll() {
         return em.createQuery("select i from Item i", Item.class)
                 .getResultList();
     }
+
+    //주문할 상품들을 IN 쿼리 한번으로, 재고를 바꾸므로 읽기 전용 아님
+    public List<Item> findAllByIds(Collection<Long> ids) {
+        return em.createQuery("select i from Item i where i.id in :ids", Item.class)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+
+    //카탈로그 가져오기, 한 청크의 sku들을 IN 쿼리 한번으로(uk_item_sku 인덱스)
+    public List<Item> findAllBySkus(Collection<String> skus) {
+        return em.createQuery("select i from Item i where i.sku in :skus", Item.class)
+                .setParameter("skus", skus)
+                .getResultList();
+    }
+
+    //읽기 전용 힌트, 변경감지용 스냅샷을 안만들어서 메모리를 덜 씀(상품 스냅샷 구성용)
+    public List<Item> findAllReadOnly() {
+        return em.createQuery("select i from Item i", Item.class)
+                .setHint(QueryHints.READ_ONLY, true)
+                .getResultList();
+    }
+
+    public List<Item> findAllReadOnly(Collection<Long> ids) {
+        return em.createQuery("select i from Item i where i.id in :ids", Item.class)
+                .setParameter("ids", ids)
+                .setHint(QueryHints.READ_ONLY, true)
+                .getResultList();
+    }
 }
@@ -0,0 +1,39 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * 회원 부분 수정, null인 값은 그대로 둠
+ * version이 있으면 읽지 않고 update 한번(MemberRepository.patch), 없으면 읽고 바꾸기
+ */
+@Getter @Setter
+public class MemberPatch {
+
+    private Long version;
+
+    private String name;
+    private String city;
+    private String street;
+    private String zipcode;
+
+    public boolean hasAddress() {
+        return city != null || street != null || zipcode != null;
+    }
+
+    public void applyTo(Member member) {
+        if (name != null) {
+            member.setName(name);
+        }
+        if (hasAddress()) {
+            //Address는 값 타입이라 통째로 바꿈
+            Address address = member.getAddress();
+            member.setAddress(new Address(
+                    city != null ? city : address == null ? null : address.getCity(),
+                    street != null ? street : address == null ? null : address.getStreet(),
+                    zipcode != null ? zipcode : address == null ? null : address.getZipcode()));
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package jpabook.jpashop.repository;
+
+//스프링 데이터 JPA로 만들 수 없는 기능, 구현은 MemberRepositoryImpl
+public interface MemberRepositoryCustom {
+
+    /**
+     * 부분 수정, 읽지 않고 patch.version이 같을 때만 바뀐 컬럼을 update
+     * @return 바뀐 행 수, 0이면 회원이 없거나 version이 다름
+     */
+    int patch(Long id, MemberPatch patch);
+}
@@ -0,0 +1,23 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.Member;
+import lombok.RequiredArgsConstructor;
+
+import javax.persistence.EntityManager;
+
+//이름이 MemberRepository + Impl이면 스프링 데이터 JPA가 MemberRepository에 합쳐줌
+@RequiredArgsConstructor
+public class MemberRepositoryImpl implements MemberRepositoryCustom {
+
+    private final EntityManager em;
+
+    @Override
+    public int patch(Long id, MemberPatch patch) {
+        return new VersionedUpdate("member", "member_id")
+                .set("name", patch.getName())
+                .set("city", patch.getCity())
+                .set("street", patch.getStreet())
+                .set("zipcode", patch.getZipcode())
+                .execute(em, Member.class, id, patch.getVersion());
+    }
+}
@@ -0,0 +1,18 @@
+package jpabook.jpashop.repository;
+
+import lombok.Getter;
+
+/**
+ * 자동완성 결과 한 건, id와 이름만
+ */
+@Getter
+public class NameMatch {
+
+    private final Long id;
+    private final String name;
+
+    public NameMatch(Long id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+}
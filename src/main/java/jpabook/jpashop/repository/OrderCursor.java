@@ -0,0 +1,109 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.exception.InvalidRequestException;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * 주문 키셋(seek) 페이징용 커서
+ * 클라이언트에는 마지막으로 받은 order_id를 감싼 불투명(opaque) 문자열로 내려준다.
+ * 다음 페이지는 offset 대신 where o.id > :lastId 로 PK 인덱스를 바로 탐색하므로
+ * 몇 페이지를 넘기든 앞 행들을 읽고 버리는 비용이 없다.
+ */
+public final class OrderCursor {
+
+    private static final String PREFIX = "o:";
+    private static final String DATE_PREFIX = "d:"; //주문시간 정렬용, 주문시간|order_id
+
+    private OrderCursor() {
+    }
+
+    public static String encode(Long lastOrderId) {
+        if (lastOrderId == null) {
+            return null;
+        }
+        byte[] raw = (PREFIX + lastOrderId).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    /**
+     * 주문시간 순 정렬일때는 같은 시간의 주문이 여러개일 수 있으므로 (주문시간, order_id)를 같이 담음
+     */
+    public static String encode(LocalDateTime orderDate, Long lastOrderId) {
+        byte[] raw = (DATE_PREFIX + orderDate + "|" + lastOrderId).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    /**
+     * encode(id), encode(orderDate, id) 어느쪽으로 만든 커서든 풀어줌, 커서가 없으면 null
+     */
+    public static Key decodeKey(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        String raw = rawOf(cursor);
+        if (raw.startsWith(PREFIX)) {
+            return new Key(null, parseId(cursor, raw.substring(PREFIX.length())));
+        }
+        int bar = raw.indexOf('|');
+        if (!raw.startsWith(DATE_PREFIX) || bar < 0) {
+            throw invalid(cursor, null);
+        }
+        try {
+            LocalDateTime orderDate = LocalDateTime.parse(raw.substring(DATE_PREFIX.length(), bar));
+            return new Key(orderDate, parseId(cursor, raw.substring(bar + 1)));
+        } catch (DateTimeParseException e) {
+            throw invalid(cursor, e);
+        }
+    }
+
+    /**
+     * 커서가 없으면 null, 즉 첫 페이지
+     */
+    public static Long decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        String raw = rawOf(cursor);
+        if (!raw.startsWith(PREFIX)) {
+            throw invalid(cursor, null);
+        }
+        return parseId(cursor, raw.substring(PREFIX.length()));
+    }
+
+    private static String rawOf(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw invalid(cursor, e);
+        }
+    }
+
+    private static Long parseId(String cursor, String id) {
+        try {
+            return Long.valueOf(id);
+        } catch (NumberFormatException e) {
+            throw invalid(cursor, e);
+        }
+    }
+
+    private static InvalidRequestException invalid(String cursor, Throwable cause) {
+        return new InvalidRequestException("잘못된 커서입니다: " + cursor, cause);
+    }
+
+    @Getter
+    public static class Key {
+
+        private final LocalDateTime orderDate; //id 순 커서면 null
+        private final Long orderId;
+
+        public Key(LocalDateTime orderDate, Long orderId) {
+            this.orderDate = orderDate;
+            this.orderId = orderId;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.OrderStatus;
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.persistence.TypedQuery;
+import java.time.LocalDateTime;
+
+/**
+ * DTO 직접 조회(v4, v5, v6, simple v4)용 페이징 + 필터 조건
+ * 주문 id 키셋 페이징이므로 정렬은 항상 o.id 오름차순
+ * 조건이 있을때만 where에 붙이므로 쿼리 모양은 조건 조합 수(최대 16개)로 고정됨
+ */
+@Getter @Setter
+public class OrderQueryCondition {
+
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+
+    private Long afterId; //이 주문 id 다음부터, null이면 처음부터
+    private int limit = DEFAULT_LIMIT; //한 페이지 주문 수
+    private OrderStatus status; //주문 상태[ORDER, CANCEL]
+    private LocalDateTime from; //주문시간 >= from
+    private LocalDateTime to; //주문시간 < to
+
+    public static OrderQueryCondition of(Long afterId, int limit, OrderStatus status, LocalDateTime from, LocalDateTime to) {
+        OrderQueryCondition condition = new OrderQueryCondition();
+        condition.setAfterId(afterId);
+        condition.setLimit(clampLimit(limit));
+        condition.setStatus(status);
+        condition.setFrom(from);
+        condition.setTo(to);
+        return condition;
+    }
+
+    //한 페이지 주문 수는 1 ~ MAX_LIMIT, 커서 페이징 API(v3.1, v3.2)도 같이 씀
+    public static int clampLimit(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    /**
+     * 주문 별칭이 o 인 JPQL에 붙일 where 절, 조건이 없으면 빈 문자열
+     */
+    public String where() {
+        StringBuilder where = new StringBuilder();
+        if (afterId != null) {
+            and(where, "o.id > :afterId");
+        }
+        if (status != null) {
+            and(where, "o.status = :status");
+        }
+        if (from != null) {
+            and(where, "o.orderDate >= :from");
+        }
+        if (to != null) {
+            and(where, "o.orderDate < :to");
+        }
+        return where.toString();
+    }
+
+    public <T> TypedQuery<T> bind(TypedQuery<T> query) {
+        if (afterId != null) {
+            query.setParameter("afterId", afterId);
+        }
+        if (status != null) {
+            query.setParameter("status", status);
+        }
+        if (from != null) {
+            query.setParameter("from", from);
+        }
+        if (to != null) {
+            query.setParameter("to", to);
+        }
+        return query;
+    }
+
+    private static void and(StringBuilder where, String predicate) {
+        where.append(where.length() == 0 ? " where " : " and ").append(predicate);
+    }
+}
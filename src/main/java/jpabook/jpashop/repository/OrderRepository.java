@@ -1,19 +1,35 @@
 package jpabook.jpashop.repository;
 
+import jpabook.jpashop.domain.DeliveryStatus;
 import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.exception.InvalidRequestException;
 
 import org.springframework.stereotype.Repository;
 import org.springframework.util.StringUtils;
 
 import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Repository
 public class OrderRepository {
 
+    //search()의 JPQL, 어떤 조건이 있는지(비트)별로 한번만 만들어 둠
+    //조건 6개 x 커서 유무 x 정렬 2개로 SQL 모양이 최대 256개로 고정되므로
+    //하이버네이트 쿼리 플랜 캐시와 DB의 prepared statement 캐시가 계속 재사용됨
+    private static final int STATUS = 1, NAME = 1 << 1, FROM = 1 << 2, TO = 1 << 3,
+            ITEM = 1 << 4, MIN_TOTAL = 1 << 5, AFTER = 1 << 6, BY_DATE = 1 << 7;
+    private static final int MAX_LIMIT = 1000;
+    private static final Map<Integer, String> searchJpqls = new ConcurrentHashMap<>();
+
     private final EntityManager em;
 
     public OrderRepository(EntityManager em) {
@@ -24,6 +40,53 @@ public class OrderRepository {
         em.persist(order);
     }
 
+    //대량 저장 중간에 쌓인 insert를 배치로 내보내고 영속성 컨텍스트를 비움
+    public void flushAndClear() {
+        em.flush();
+        em.clear();
+    }
+
+    /**
+     * 대량 취소용, 주문 행에 쓰기 락(select ... for update)
+     * 같은 주문을 동시에 취소해도 한쪽만 취소하고 재고를 한번만 돌려줌
+     * 겹치는 주문을 가진 두 취소가 서로 다른 순서로 락을 잡지 않게 id 순으로(데드락 방지)
+     */
+    public List<Order> findAllForUpdate(Collection<Long> ids) {
+        return em.createQuery("select o from Order o where o.id in :ids order by o.id", Order.class)
+                .setParameter("ids", ids)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
+    }
+
+    //배송 id -> 배송 상태, 엔티티를 읽지 않고 값만(Delivery를 읽으면 반대편 주문까지 읽힘)
+    public Map<Long, DeliveryStatus> findDeliveryStatuses(Collection<Long> deliveryIds) {
+        Map<Long, DeliveryStatus> statuses = new HashMap<>();
+        em.createQuery("select d.id, d.status from Delivery d where d.id in :ids", Object[].class)
+                .setParameter("ids", deliveryIds)
+                .getResultList()
+                .forEach(row -> statuses.put((Long) row[0], (DeliveryStatus) row[1]));
+        return statuses;
+    }
+
+    //주문 여러개를 update 한번으로 취소, 영속성 컨텍스트에 읽어둔 주문은 바뀌지 않음
+    public int cancelAll(Collection<Long> ids) {
+        return em.createQuery("update Order o set o.status = :cancel where o.id in :ids")
+                .setParameter("cancel", OrderStatus.CANCEL)
+                .setParameter("ids", ids)
+                .executeUpdate();
+    }
+
+    //주문들의 상품별 총 수량
+    public Map<Long, Integer> sumCountsByItem(Collection<Long> orderIds) {
+        Map<Long, Integer> counts = new HashMap<>();
+        em.createQuery("select oi.item.id, sum(oi.count) from OrderItem oi" +
+                " where oi.order.id in :ids group by oi.item.id", Object[].class)
+                .setParameter("ids", orderIds)
+                .getResultList()
+                .forEach(row -> counts.put((Long) row[0], ((Number) row[1]).intValue()));
+        return counts;
+    }
+
     public Order findOne(Long id) {
         return em.find(Order.class, id);
     }
@@ -73,6 +136,101 @@ public class OrderRepository {
         return query.getResultList();
     }
 
+    /**
+     * 주문 검색, 조건은 모두 선택, 커서(after)로 다음 페이지
+     * 회원명은 앞부분 일치(name like '홍%')라 idx_member_name 인덱스를 탐
+     */
+    public CursorPage<Order> search(OrderSearch orderSearch) {
+        OrderCursor.Key after = OrderCursor.decodeKey(orderSearch.getAfter());
+        boolean byDate = orderSearch.getSort() == OrderSort.ORDER_DATE_DESC;
+        if (after != null && byDate != (after.getOrderDate() != null)) {
+            throw new InvalidRequestException("커서와 정렬 조건이 맞지 않습니다: " + orderSearch.getSort());
+        }
+        int limit = Math.min(Math.max(orderSearch.getLimit(), 1), MAX_LIMIT);
+
+        int shape = shapeOf(orderSearch, after, byDate);
+        TypedQuery<Order> query = em.createQuery(searchJpqls.computeIfAbsent(shape, OrderRepository::searchJpql), Order.class)
+                .setMaxResults(limit + 1);
+
+        if ((shape & STATUS) != 0) {
+            query.setParameter("status", orderSearch.getOrderStatus());
+        }
+        if ((shape & NAME) != 0) {
+            query.setParameter("namePrefix", escapeLike(orderSearch.getMemberName()) + "%");
+        }
+        if ((shape & FROM) != 0) {
+            query.setParameter("from", orderSearch.getFrom());
+        }
+        if ((shape & TO) != 0) {
+            query.setParameter("to", orderSearch.getTo());
+        }
+        if ((shape & ITEM) != 0) {
+            query.setParameter("itemId", orderSearch.getItemId());
+        }
+        if ((shape & MIN_TOTAL) != 0) {
+            query.setParameter("minTotal", orderSearch.getMinTotal());
+        }
+        if ((shape & AFTER) != 0) {
+            query.setParameter("afterId", after.getOrderId());
+            if (byDate) {
+                query.setParameter("afterDate", after.getOrderDate());
+            }
+        }
+
+        List<Order> fetched = query.getResultList();
+        if (fetched.size() <= limit) {
+            return new CursorPage<>(fetched, null);
+        }
+        List<Order> content = new ArrayList<>(fetched.subList(0, limit));
+        Order last = content.get(limit - 1);
+        String nextCursor = byDate ? OrderCursor.encode(last.getOrderDate(), last.getId()) : OrderCursor.encode(last.getId());
+        return new CursorPage<>(content, nextCursor);
+    }
+
+    private static int shapeOf(OrderSearch orderSearch, OrderCursor.Key after, boolean byDate) {
+        int shape = 0;
+        if (orderSearch.getOrderStatus() != null) shape |= STATUS;
+        if (StringUtils.hasText(orderSearch.getMemberName())) shape |= NAME;
+        if (orderSearch.getFrom() != null) shape |= FROM;
+        if (orderSearch.getTo() != null) shape |= TO;
+        if (orderSearch.getItemId() != null) shape |= ITEM;
+        if (orderSearch.getMinTotal() != null) shape |= MIN_TOTAL;
+        if (after != null) shape |= AFTER;
+        if (byDate) shape |= BY_DATE;
+        return shape;
+    }
+
+    //조건은 항상 같은 순서로 붙여서 같은 조건 조합이면 글자까지 같은 JPQL이 되도록
+    private static String searchJpql(int shape) {
+        List<String> where = new ArrayList<>();
+        if ((shape & STATUS) != 0) where.add("o.status = :status");
+        if ((shape & NAME) != 0) where.add("m.name like :namePrefix escape '!'");
+        if ((shape & FROM) != 0) where.add("o.orderDate >= :from");
+        if ((shape & TO) != 0) where.add("o.orderDate < :to");
+        if ((shape & ITEM) != 0) {
+            where.add("exists (select oi.id from OrderItem oi where oi.order = o and oi.item.id = :itemId)");
+        }
+        if ((shape & MIN_TOTAL) != 0) {
+            where.add("(select sum(ot.orderPrice * ot.count) from OrderItem ot where ot.order = o) >= :minTotal");
+        }
+        if ((shape & AFTER) != 0) {
+            where.add((shape & BY_DATE) != 0
+                    ? "(o.orderDate < :afterDate or (o.orderDate = :afterDate and o.id < :afterId))"
+                    : "o.id < :afterId");
+        }
+
+        StringBuilder jpql = new StringBuilder("select o from Order o join fetch o.member m join fetch o.delivery d");
+        if (!where.isEmpty()) {
+            jpql.append(" where ").append(String.join(" and ", where));
+        }
+        jpql.append((shape & BY_DATE) != 0 ? " order by o.orderDate desc, o.id desc" : " order by o.id desc");
+        return jpql.toString();
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
     /**
      * JPA Criteria
      */
@@ -140,6 +298,26 @@ public class OrderRepository {
                 .setMaxResults(limit)
                 .getResultList();
     }
+
+    //offset 페이징은 offset만큼 읽고 버리므로 뒤로 갈수록 느려짐
+    //키셋 페이징은 마지막으로 본 order_id 다음부터 PK 인덱스를 타고 limit개만 읽음, 페이지 깊이와 무관하게 일정
+    //afterId가 null이면 첫 페이지, 다음 페이지 확인용으로 limit + 1개 읽음
+    public CursorPage<Order> findAllWithMemberDeliveryAfter(Long afterId, int limit) {
+        String jpql = "select o from Order o" +
+                " join fetch o.member m" +
+                " join fetch o.delivery d";
+        if (afterId != null) {
+            jpql += " where o.id > :afterId";
+        }
+        jpql += " order by o.id";
+
+        TypedQuery<Order> query = em.createQuery(jpql, Order.class)
+                .setMaxResults(limit + 1);
+        if (afterId != null) {
+            query.setParameter("afterId", afterId);
+        }
+        return CursorPage.of(query.getResultList(), limit, Order::getId);
+    }
 }
 //페치조인으로는 페이징을 못함
 //ToOne관계는 페치조인해도 됨, 데이터 뻥튀기가 안되서
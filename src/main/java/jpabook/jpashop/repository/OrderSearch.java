@@ -3,10 +3,26 @@ package jpabook.jpashop.repository;
 import jpabook.jpashop.domain.OrderStatus;
 import lombok.Getter;
 import lombok.Setter;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
 
 @Getter @Setter
 public class OrderSearch {
 
-    private String memberName; //회원 이름
+    private String memberName; //회원 이름, search()에서는 앞부분 일치(인덱스 사용)
     private OrderStatus orderStatus; //주문 상태[ORDER, CANCEL]
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime from; //주문시간 >= from
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime to; //주문시간 < to
+
+    private Long itemId; //이 상품을 포함한 주문
+    private Long minTotal; //주문 총액 >= minTotal
+
+    private OrderSort sort = OrderSort.ID_DESC;
+    private String after; //이전 페이지의 nextCursor
+    private int limit = 100;
 }
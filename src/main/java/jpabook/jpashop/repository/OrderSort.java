@@ -0,0 +1,10 @@
+package jpabook.jpashop.repository;
+
+/**
+ * 주문 검색 정렬, 인덱스를 탈 수 있는 키만
+ * ID_DESC: PK(order_id)
+ * ORDER_DATE_DESC: idx_orders_order_date(order_date, order_id)
+ */
+public enum OrderSort {
+    ID_DESC, ORDER_DATE_DESC
+}
@@ -0,0 +1,46 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.StockReservation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class StockReservationRepository {
+
+    private final EntityManager em;
+
+    public void save(StockReservation reservation) {
+        em.persist(reservation);
+    }
+
+    public List<StockReservation> findOldest(int limit) {
+        return em.createQuery("select r from StockReservation r order by r.id", StockReservation.class)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    public int deleteByIds(Collection<Long> ids) {
+        return em.createQuery("delete from StockReservation r where r.id in :ids")
+                .setParameter("ids", ids)
+                .executeUpdate();
+    }
+
+    /**
+     * 반영 안된 예약까지 뺀 재고, 상품이 없으면 null
+     * 재고와 예약 합계를 한 SQL로 읽어야 반영(flush) 중간 상태를 보지 않음
+     */
+    public Integer findAvailableStock(Long itemId) {
+        List<?> result = em.createNativeQuery(
+                "select i.stock_quantity - coalesce((select sum(r.quantity) from stock_reservation r" +
+                        " where r.item_id = i.item_id), 0)" +
+                        " from item i where i.item_id = ?")
+                .setParameter(1, itemId)
+                .getResultList();
+        return result.isEmpty() ? null : ((Number) result.get(0)).intValue();
+    }
+}
@@ -0,0 +1,92 @@
+package jpabook.jpashop.repository;
+
+import org.hibernate.query.NativeQuery;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 읽지 않고 바로 고치는 update 한 문장, 넘어온 컬럼만 set 하고 version이 같을 때만 바뀜
+ * update t set c1 = ?, ..., version = version + 1 where id = ? and version = ?
+ * JPQL 벌크 update는 엔티티 2차 캐시 리전 전체를 비우므로 네이티브 SQL로 실행하고 고친 행만 비움
+ * (쿼리 캐시는 쓰지 않으므로 쿼리 공간은 테이블과 겹치지 않는 이름으로)
+ */
+class VersionedUpdate {
+
+    static final String QUERY_SPACE = "versioned_update";
+
+    private final String table;
+    private final String idColumn;
+    private final Map<String, Object> columns = new LinkedHashMap<>();
+    private final List<String> conditions = new ArrayList<>();
+    private final List<Object> conditionValues = new ArrayList<>();
+
+    VersionedUpdate(String table, String idColumn) {
+        this.table = table;
+        this.idColumn = idColumn;
+    }
+
+    //null이면 바꾸지 않는 컬럼
+    VersionedUpdate set(String column, Object value) {
+        if (value != null) {
+            columns.put(column, value);
+        }
+        return this;
+    }
+
+    VersionedUpdate where(String column, Object value) {
+        conditions.add(column);
+        conditionValues.add(value);
+        return this;
+    }
+
+    /**
+     * @return 바뀐 행 수, 0이면 행이 없거나 version이 다름(조건이 안맞음)
+     */
+    int execute(EntityManager em, Class<?> entityClass, Object id, long version) {
+        StringBuilder sql = new StringBuilder("update ").append(table).append(" set ");
+        columns.keySet().forEach(column -> sql.append(column).append(" = ?, "));
+        sql.append("version = version + 1 where ").append(idColumn).append(" = ? and version = ?");
+        conditions.forEach(column -> sql.append(" and ").append(column).append(" = ?"));
+
+        Query query = em.createNativeQuery(sql.toString());
+        int position = 1;
+        for (Object value : columns.values()) {
+            query.setParameter(position++, value);
+        }
+        query.setParameter(position++, id);
+        query.setParameter(position++, version);
+        for (Object value : conditionValues) {
+            query.setParameter(position++, value);
+        }
+        int updated = query.unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace(QUERY_SPACE)
+                .executeUpdate();
+
+        if (updated > 0) {
+            evict(em, entityClass, id);
+        }
+        return updated;
+    }
+
+    //지금 비우고, 커밋 전에 다른 트랜잭션이 옛 값을 다시 캐시에 넣었을 수 있으므로 트랜잭션이 끝난 뒤 한번 더
+    //다른 네이티브 update(ItemRepository.decreaseStock, addStock)도 같이 씀
+    static void evict(EntityManager em, Class<?> entityClass, Object id) {
+        javax.persistence.Cache cache = em.getEntityManagerFactory().getCache();
+        cache.evict(entityClass, id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.evict(entityClass, id);
+                }
+            });
+        }
+    }
+}
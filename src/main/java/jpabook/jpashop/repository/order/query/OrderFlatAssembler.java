@@ -0,0 +1,59 @@
+package jpabook.jpashop.repository.order.query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * o.id 순으로 정렬된 플랫 row(OrderFlatDto)를 한번 훑으면서 주문 단위로 접는
+ * 바로 앞 row와 orderId만 비교하므로 groupingBy처럼 equals/hashCode나 해시맵이 필요없고 쿼리 순서가 그대로 유지됨
+ * 주문당 OrderQueryDto 1개, row당 OrderItemQueryDto 1개만 만듬
+ * 주문 하나가 완성될 때마다 sink로 넘기므로 스트리밍(export)에도 그대로 씀
+ */
+public class OrderFlatAssembler {
+
+    private final Consumer<OrderQueryDto> sink;
+    private OrderQueryDto current;
+    private long assembledCount;
+
+    public OrderFlatAssembler(Consumer<OrderQueryDto> sink) {
+        this.sink = sink;
+    }
+
+    public static List<OrderQueryDto> assemble(List<OrderFlatDto> flats) {
+        List<OrderQueryDto> result = new ArrayList<>();
+        OrderFlatAssembler assembler = new OrderFlatAssembler(result::add);
+        for (OrderFlatDto flat : flats) {
+            assembler.add(flat);
+        }
+        assembler.finish();
+        return result;
+    }
+
+    public void add(OrderFlatDto row) {
+        if (current == null || !current.getOrderId().equals(row.getOrderId())) {
+            emitCurrent();
+            current = new OrderQueryDto(row.getOrderId(), row.getName(), row.getOrderDate(), row.getOrderStatus(), row.getAddress(), new ArrayList<>());
+        }
+        current.getOrderItems().add(new OrderItemQueryDto(row.getOrderId(), row.getItemName(), row.getOrderPrice(), row.getCount()));
+    }
+
+    /**
+     * 마지막 주문은 다음 orderId가 안나오므로 직접 넘겨줘야함
+     */
+    public void finish() {
+        emitCurrent();
+    }
+
+    public long getAssembledCount() {
+        return assembledCount;
+    }
+
+    private void emitCurrent() {
+        if (current != null) {
+            sink.accept(current);
+            assembledCount++;
+            current = null;
+        }
+    }
+}
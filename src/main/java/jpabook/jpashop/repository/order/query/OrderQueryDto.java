@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 @Data
@@ -39,4 +40,18 @@ public class OrderQueryDto {
         this.address = address;
         this.orderItems = orderItems;
     }
+
+    /**
+     * 주문상품까지 복사(OrderViewCache), Address는 값 타입이라 그대로 공유
+     */
+    public OrderQueryDto copy() {
+        List<OrderItemQueryDto> items = null;
+        if (orderItems != null) {
+            items = new ArrayList<>(orderItems.size());
+            for (OrderItemQueryDto item : orderItems) {
+                items.add(new OrderItemQueryDto(item.getOrderId(), item.getItemName(), item.getOrderPrice(), item.getCount()));
+            }
+        }
+        return new OrderQueryDto(orderId, name, orderDate, orderStatus, address, items);
+    }
 }
\ No newline at end of file
@@ -1,11 +1,36 @@
 package jpabook.jpashop.repository.order.query;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jpabook.jpashop.config.ConnectionHeadroom;
+import jpabook.jpashop.repository.CursorPage;
+import jpabook.jpashop.repository.OrderCursor;
+import jpabook.jpashop.repository.OrderQueryCondition;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.query.Query;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 //패키지 나눈 이유
@@ -17,6 +42,29 @@ public class OrderQueryRepository {
 
     //@RequiredArgsConstructor로 자동 의존 주입
     private final EntityManager em;
+    private final PlatformTransactionManager transactionManager;
+    private final AsyncTaskExecutor orderQueryExecutor;
+    private final AsyncTaskExecutor orderStageExecutor;
+    private final ConnectionHeadroom connectionHeadroom;
+    private final MeterRegistry meterRegistry;
+    private final OrderViewCache orderViewCache;
+
+    //order.query.stage 타이머의 mode 태그
+    private static final String SEQUENTIAL = "sequential";
+    private static final String PARALLEL = "parallel";
+
+    //IN 절 하나에 넣을 최대 id 수, 2의 제곱수
+    @Value("${jpashop.query.in-chunk-size:512}")
+    private int inChunkSize;
+
+    //v6 플랫 조회에서 주문 한 페이지당 읽을 row 수 = (limit + 1) * 이 값
+    //주문 하나의 주문상품 수가 이보다 많으면 다음 페이지로 넘어가는 주문이 생길 뿐 결과는 맞음
+    @Value("${jpashop.query.flat-rows-per-order:8}")
+    private int flatRowsPerOrder;
+
+    //export용 JDBC fetch size, MySQL은 url에 useCursorFetch=true가 있어야 서버 커서로 끊어서 읽음
+    @Value("${jpashop.export.fetch-size:1000}")
+    private int exportFetchSize;
 
     /**
      * 컬렉션은 별도로 조회
@@ -24,9 +72,10 @@ public class OrderQueryRepository {
      * 단건 조회에서 많이 사용하는 방식
      */
     //OrderApiController의 OrderDto를 참조하게 되면 리포지토리가 컨트롤러를 참조하는 의존관계가 순홚이 됨
-    public List<OrderQueryDto> findOrderQueryDtos() {
-        //루트 조회(toOne 코드를 모두 한번에 조회)
-        List<OrderQueryDto> result = findOrders();
+    public CursorPage<OrderQueryDto> findOrderQueryDtos(OrderQueryCondition condition) {
+        //루트 조회(toOne 코드를 모두 한번에 조회), limit + 1개 읽어서 다음 페이지 여부 판단
+        CursorPage<OrderQueryDto> page = CursorPage.of(findOrders(condition), condition.getLimit(), OrderQueryDto::getOrderId);
+        List<OrderQueryDto> result = page.getContent();
 
         //루프를 돌면서 컬렉션 추가(추가 쿼리 실행)
         //orderquerydto생성자에서 못채운 orderItems를 하나씩 넣어줘야함
@@ -34,18 +83,23 @@ public class OrderQueryRepository {
             List<OrderItemQueryDto> orderItems = findOrderItems(o.getOrderId());
             o.setOrderItems(orderItems);
         });
-        return result;
+        return page;
     }
 
     /**
      * 1:N 관계(컬렉션)를 제외한 나머지를 한번에 조회
+     * toOne만 조인하므로 row 수가 늘지 않아 limit을 걸 수 있음, 다음 페이지 확인용으로 한개 더 읽음
      */
-    private List<OrderQueryDto> findOrders() {
-        return em.createQuery(
+    private List<OrderQueryDto> findOrders(OrderQueryCondition condition) {
+        TypedQuery<OrderQueryDto> query = em.createQuery(
                 "select new jpabook.jpashop.repository.order.query.OrderQueryDto(o.id, m.name, o.orderDate, o.status, d.address)" +
                         " from Order o" +
                         " join o.member m" +
-                        " join o.delivery d", OrderQueryDto.class)
+                        " join o.delivery d" +
+                        condition.where() +
+                        " order by o.id", OrderQueryDto.class);
+        return condition.bind(query)
+                .setMaxResults(condition.getLimit() + 1)
                 .getResultList();
     }
 
@@ -72,18 +126,162 @@ public class OrderQueryRepository {
     //order가 10개면 10개에 해당하는 주문아이템 아이디를 in절로 넘겨 한번에 쫙 당겨옴
     //앞에꺼는 루프를 돌릴때마다 쿼리를 날리는데, 얘는 쿼리 한번 날리고 메모리에서 맵으로 가져온 다음
     //메모리에서 매칭을 해가지고 값을 세팅
-    public List<OrderQueryDto> findAllByDto_optimization() {
+    public CursorPage<OrderQueryDto> findAllByDto_optimization(OrderQueryCondition condition) {
+        long started = System.nanoTime();
 
-        //루트 조회(toOne 코드를 모두 한번에 조회)
-        List<OrderQueryDto> result = findOrders();
+        //루트 조회(toOne 코드를 모두 한번에 조회), 한 페이지만
+        CursorPage<OrderQueryDto> page = stage(SEQUENTIAL, "root",
+                () -> CursorPage.of(findOrders(condition), condition.getLimit(), OrderQueryDto::getOrderId));
+        List<OrderQueryDto> result = page.getContent();
 
         //orderItem 컬렉션을 주문 데이터만큼 MAP 한방에 조회
-        Map<Long, List<OrderItemQueryDto>> orderItemMap = findOrderItemMap(toOrderIds(result));
+        Map<Long, List<OrderItemQueryDto>> orderItemMap = stage(SEQUENTIAL, "items", () -> findOrderItemMap(toOrderIds(result)));
 
         //루프를 돌면서 컬렉션 추가(추가 쿼리 실행X)
-        result.forEach(o -> o.setOrderItems(orderItemMap.get(o.getOrderId())));
+        stage(SEQUENTIAL, "join", () -> {
+            result.forEach(o -> o.setOrderItems(orderItemMap.get(o.getOrderId())));
+            return result;
+        });
+
+        stageTimer(SEQUENTIAL, "total").record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        return page;
+    }
+
+    /**
+     * 루트와 컬렉션 동시 조회
+     * findAllByDto_optimization은 루트 결과의 주문 id로 컬렉션을 조회하므로 두 쿼리 시간이 그대로 더해짐
+     * 커서(afterId)와 주문시간 범위를 이미 알고 있으므로 컬렉션도 루트와 같은 조건으로 주문 id 순으로 읽으면 루트를 기다릴 필요가 없음
+     * 컬렉션은 orderStageExecutor에서 별도 읽기 전용 트랜잭션(별도 커넥션)으로, 루트는 지금 스레드에서 동시에 실행하고 메모리에서 맞춤
+     * 별도 커넥션은 ConnectionHeadroom 허용량 안에서만 씀, 없으면 지금 스레드에서 순차로(요청이 몰려도 풀이 바닥나서 멈추지 않게)
+     * Query: 루트 1번, 컬렉션 1번(동시), 아래 경우에만 컬렉션 IN 쿼리 1번 더
+     * - 컬렉션은 (limit + 1) * flatRowsPerOrder row까지만 읽으므로 꽉 채워 읽었으면 마지막 주문부터는 잘렸을 수 있음
+     * - 두 쿼리는 스냅샷이 달라서 그 사이 커밋된 주문은 루트에만 있을 수 있음
+     * 이런 주문들만 주문 id IN 쿼리로 다시 읽으므로 결과는 findAllByDto_optimization과 같음
+     */
+    public CursorPage<OrderQueryDto> findAllByDto_parallel(OrderQueryCondition condition) {
+        long started = System.nanoTime();
+        int maxRows = (condition.getLimit() + 1) * flatRowsPerOrder;
+
+        //커넥션을 하나 더 쓸 허용량이 없으면 기다리지 않고 지금 커넥션에서 루트 다음에 순차로 읽음, 결과는 같음
+        Future<List<OrderItemQueryDto>> itemsFuture = null;
+        if (connectionHeadroom.tryAcquire()) {
+            TransactionTemplate readOnlyTx = readOnlyTx();
+            itemsFuture = submitWithHeadroom(orderStageExecutor,
+                    () -> readOnlyTx.execute(status -> stage(PARALLEL, "items", () -> findOrderItemsOf(condition, maxRows))));
+        }
+
+        CursorPage<OrderQueryDto> page = stage(PARALLEL, "root",
+                () -> CursorPage.of(findOrders(condition), condition.getLimit(), OrderQueryDto::getOrderId));
+        List<OrderItemQueryDto> orderItems = itemsFuture != null
+                ? await(itemsFuture)
+                : stage(SEQUENTIAL, "items", () -> findOrderItemsOf(condition, maxRows));
+
+        stage(PARALLEL, "join", () -> {
+            List<OrderQueryDto> result = page.getContent();
+            Map<Long, List<OrderItemQueryDto>> orderItemMap = groupByOrderId(orderItems);
+
+            Long cutFrom = orderItems.size() == maxRows ? orderItems.get(orderItems.size() - 1).getOrderId() : null;
+            List<Long> missing = result.stream()
+                    .map(OrderQueryDto::getOrderId)
+                    .filter(id -> !orderItemMap.containsKey(id) || (cutFrom != null && id >= cutFrom))
+                    .collect(Collectors.toList());
+            orderItemMap.putAll(findOrderItemMap(missing));
+
+            result.forEach(o -> o.setOrderItems(orderItemMap.getOrDefault(o.getOrderId(), Collections.emptyList())));
+            return result;
+        });
+
+        stageTimer(PARALLEL, "total").record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        return page;
+    }
+
+    //루트와 같은 조건, 루트와 같은 주문 id 순이라 앞에서부터 읽으면 루트 페이지의 주문상품이 먼저 옴
+    private List<OrderItemQueryDto> findOrderItemsOf(OrderQueryCondition condition, int maxRows) {
+        TypedQuery<OrderItemQueryDto> query = em.createQuery(
+                "select new jpabook.jpashop.repository.order.query.OrderItemQueryDto(o.id, i.name, oi.orderPrice, oi.count)" +
+                        " from OrderItem oi" +
+                        " join oi.order o" +
+                        " join oi.item i" +
+                        condition.where() +
+                        " order by o.id, oi.id", OrderItemQueryDto.class);
+        return condition.bind(query)
+                .setMaxResults(maxRows)
+                .getResultList();
+    }
 
-        return result;
+    private <T> T stage(String mode, String stage, Supplier<T> supplier) {
+        return stageTimer(mode, stage).record(supplier);
+    }
+
+    //p99에서 동시 조회로 줄어든 시간을 보려고 백분위수도 같이 내보냄
+    private Timer stageTimer(String mode, String stage) {
+        return Timer.builder("order.query.stage")
+                .description("v5 주문 조회 단계별(root, items, join, total) 실행 시간")
+                .tag("mode", mode)
+                .tag("stage", stage)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    private TransactionTemplate readOnlyTx() {
+        TransactionTemplate readOnlyTx = new TransactionTemplate(transactionManager);
+        readOnlyTx.setReadOnly(true);
+        readOnlyTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return readOnlyTx;
+    }
+
+    /**
+     * 캐시 사용 버전
+     * 1. 조건에 맞는 주문 id만 가벼운 쿼리로 조회(조인 없이 PK 인덱스만)
+     * 2. 캐시에 있는 주문은 그대로 쓰고
+     * 3. 없는 주문만 루트 쿼리 1번 + 컬렉션 IN 쿼리 1번으로 만들어서 캐시에 넣음
+     * 캐시가 다 차 있으면 id 쿼리 1번으로 끝남, 결과 순서는 id 쿼리 순서
+     */
+    public CursorPage<OrderQueryDto> findAllByDto_cache(OrderQueryCondition condition) {
+        CursorPage<Long> idPage = CursorPage.of(findOrderIds(condition), condition.getLimit(), id -> id);
+        List<Long> orderIds = idPage.getContent();
+
+        Map<Long, OrderQueryDto> found = new HashMap<>(orderViewCache.getAllPresent(orderIds));
+        List<Long> misses = orderIds.stream()
+                .filter(id -> !found.containsKey(id))
+                .collect(Collectors.toList());
+
+        if (!misses.isEmpty()) {
+            List<OrderQueryDto> loaded = findOrdersByIds(misses);
+            Map<Long, List<OrderItemQueryDto>> orderItemMap = findOrderItemMap(misses);
+            loaded.forEach(o -> o.setOrderItems(orderItemMap.getOrDefault(o.getOrderId(), Collections.emptyList())));
+
+            orderViewCache.putAll(loaded);
+            loaded.forEach(o -> found.put(o.getOrderId(), o));
+        }
+
+        //id 조회와 미스 조회 사이에 지워진 주문은 빠짐
+        List<OrderQueryDto> result = orderIds.stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return new CursorPage<>(result, idPage.getNextCursor());
+    }
+
+    private List<Long> findOrderIds(OrderQueryCondition condition) {
+        TypedQuery<Long> query = em.createQuery(
+                "select o.id from Order o" +
+                        condition.where() +
+                        " order by o.id", Long.class);
+        return condition.bind(query)
+                .setMaxResults(condition.getLimit() + 1)
+                .getResultList();
+    }
+
+    private List<OrderQueryDto> findOrdersByIds(List<Long> orderIds) {
+        return em.createQuery(
+                "select new jpabook.jpashop.repository.order.query.OrderQueryDto(o.id, m.name, o.orderDate, o.status, d.address)" +
+                        " from Order o" +
+                        " join o.member m" +
+                        " join o.delivery d" +
+                        " where o.id in :orderIds", OrderQueryDto.class)
+                .setParameter("orderIds", orderIds)
+                .getResultList();
     }
 
     private List<Long> toOrderIds(List<OrderQueryDto> result) {
@@ -96,29 +294,219 @@ public class OrderQueryRepository {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * 주문 id가 수십만개면 IN 절 하나로는 SQL이 너무 커지고 드라이버 파라미터 제한에 걸림, 문장 캐시도 못씀
+     * in-chunk-size개씩 끊고, 각 청크는 2의 제곱수 크기로 패딩(마지막 id 반복)해서 SQL 종류를 몇개로 고정
+     * 청크가 여러개면 ConnectionHeadroom에서 허용량을 얻은 청크만 orderQueryExecutor에서 각자 읽기 전용 트랜잭션(별도 커넥션)으로 동시에 실행
+     * 허용량을 못 얻은 청크는 지금 스레드, 지금 트랜잭션에서 순차로 실행, 커넥션을 잡은 채로 다른 커넥션을 기다리지 않음
+     */
     private Map<Long, List<OrderItemQueryDto>> findOrderItemMap(List<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        List<List<Long>> chunks = chunk(orderIds, inChunkSize);
 
-        //id를 하나씩이 아닌 in절로 한번에 갖고옴, 뽑혀있는 아이디 2개를 파라미터 in절로 넣음
-        List<OrderItemQueryDto> orderItems = em.createQuery(
+        //청크가 하나면 지금 스레드, 지금 트랜잭션에서 바로 조회
+        if (chunks.size() == 1) {
+            return groupByOrderId(findOrderItemsIn(chunks.get(0)));
+        }
+
+        //첫 청크는 어차피 지금 스레드가 기다리는 동안 직접 읽음
+        TransactionTemplate readOnlyTx = readOnlyTx();
+        List<Future<List<OrderItemQueryDto>>> futures = new ArrayList<>(chunks.size());
+        List<List<Long>> local = new ArrayList<>();
+        local.add(chunks.get(0));
+        for (List<Long> chunk : chunks.subList(1, chunks.size())) {
+            if (connectionHeadroom.tryAcquire()) {
+                futures.add(submitWithHeadroom(orderQueryExecutor, () -> readOnlyTx.execute(status -> findOrderItemsIn(chunk))));
+            } else {
+                local.add(chunk);
+            }
+        }
+
+        List<OrderItemQueryDto> orderItems = new ArrayList<>();
+        for (List<Long> chunk : local) {
+            orderItems.addAll(findOrderItemsIn(chunk));
+        }
+        for (Future<List<OrderItemQueryDto>> future : futures) {
+            orderItems.addAll(await(future));
+        }
+        return groupByOrderId(orderItems);
+    }
+
+    //허용량을 얻은 뒤에만 호출, 작업이 끝나거나 제출이 실패하면 돌려줌
+    private <T> Future<T> submitWithHeadroom(AsyncTaskExecutor executor, Supplier<T> task) {
+        try {
+            return executor.submit(() -> {
+                try {
+                    return task.get();
+                } finally {
+                    connectionHeadroom.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            connectionHeadroom.release();
+            throw e;
+        }
+    }
+
+    //id를 하나씩이 아닌 in절로 한번에 갖고옴, 청크 크기별로 실행 시간 기록
+    private List<OrderItemQueryDto> findOrderItemsIn(List<Long> chunk) {
+        Timer timer = Timer.builder("order.query.items.chunk")
+                .description("주문상품 IN 쿼리 청크 하나의 실행 시간")
+                .tag("size", String.valueOf(chunk.size()))
+                .register(meterRegistry);
+
+        return timer.record(() -> em.createQuery(
                 "select new jpabook.jpashop.repository.order.query.OrderItemQueryDto(oi.order.id, i.name, oi.orderPrice, oi.count)" +
                         " from OrderItem oi" +
                         " join oi.item i" +
                         " where oi.order.id in :orderIds", OrderItemQueryDto.class)
-                .setParameter("orderIds", orderIds)
-                .getResultList();
+                .setParameter("orderIds", chunk)
+                .getResultList());
+    }
 
+    //OrderItemGroupingBenchmark에서 직접 호출
+    static Map<Long, List<OrderItemQueryDto>> groupByOrderId(List<OrderItemQueryDto> orderItems) {
         return orderItems.stream()
                 .collect(Collectors.groupingBy(OrderItemQueryDto::getOrderId));
     }
 
-    public List<OrderFlatDto> findAllByDto_flat() {
+    /**
+     * size개씩 자르고 각 조각을 2의 제곱수 크기로 패딩
+     * IN 절에 같은 id가 여러번 들어가도 결과 row는 늘지 않음
+     */
+    static List<List<Long>> chunk(List<Long> ids, int size) {
+        List<List<Long>> chunks = new ArrayList<>((ids.size() + size - 1) / size);
+        for (int from = 0; from < ids.size(); from += size) {
+            List<Long> part = ids.subList(from, Math.min(from + size, ids.size()));
+            int padded = Integer.highestOneBit(part.size());
+            if (padded < part.size()) {
+                padded <<= 1;
+            }
+
+            List<Long> chunk = new ArrayList<>(padded);
+            chunk.addAll(part);
+            Long last = part.get(part.size() - 1);
+            while (chunk.size() < padded) {
+                chunk.add(last);
+            }
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("주문상품 조회 중 인터럽트", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("주문상품 조회 실패", e.getCause());
+        }
+    }
+
+    /**
+     * 플랫 조회 한 페이지, 쿼리 1번
+     * row가 주문상품 단위라 주문 수로 limit을 걸 수 없으므로 (limit + 1) * flatRowsPerOrder개의 row를 읽음
+     * row를 꽉 채워 읽었으면 마지막 주문은 잘렸을 수 있으므로 버리고 다음 페이지에서 다시 읽음
+     */
+    public CursorPage<OrderQueryDto> findAllByDto_flat(OrderQueryCondition condition) {
+        int maxRows = (condition.getLimit() + 1) * flatRowsPerOrder;
+        List<OrderFlatDto> flats = findFlats(condition, maxRows);
+        List<OrderQueryDto> orders = OrderFlatAssembler.assemble(flats);
+
+        boolean truncated = flats.size() == maxRows;
+        if (truncated) {
+            if (orders.size() == 1) {
+                //주문 하나의 주문상품이 maxRows보다 많은 경우, 그 주문만 제한 없이 다시 읽음
+                orders = OrderFlatAssembler.assemble(findFlatsOfOrder(orders.get(0).getOrderId()));
+            } else {
+                orders = orders.subList(0, orders.size() - 1);
+            }
+        }
+
+        CursorPage<OrderQueryDto> page = CursorPage.of(orders, condition.getLimit(), OrderQueryDto::getOrderId);
+        if (truncated && page.getNextCursor() == null) {
+            //잘라낸 주문이 남아 있으므로 다음 페이지가 있음
+            List<OrderQueryDto> content = page.getContent();
+            return new CursorPage<>(content, OrderCursor.encode(content.get(content.size() - 1).getOrderId()));
+        }
+        return page;
+    }
+
+    private List<OrderFlatDto> findFlatsOfOrder(Long orderId) {
         return em.createQuery(
                 "select new jpabook.jpashop.repository.order.query.OrderFlatDto(o.id, m.name, o.orderDate, o.status, d.address, i.name, oi.orderPrice, oi.count)" +
                         " from Order o" +
                         " join o.member m" +
                         " join o.delivery d" +
                         " join o.orderItems oi" +
-                        " join oi.item i", OrderFlatDto.class)
+                        " join oi.item i" +
+                        " where o.id = :orderId" +
+                        " order by oi.id", OrderFlatDto.class)
+                .setParameter("orderId", orderId)
+                .getResultList();
+    }
+
+    //OrderFlatAssembler가 인접한 row끼리 접을 수 있게 주문 id 순으로 정렬
+    private List<OrderFlatDto> findFlats(OrderQueryCondition condition, int maxRows) {
+        TypedQuery<OrderFlatDto> query = em.createQuery(
+                "select new jpabook.jpashop.repository.order.query.OrderFlatDto(o.id, m.name, o.orderDate, o.status, d.address, i.name, oi.orderPrice, oi.count)" +
+                        " from Order o" +
+                        " join o.member m" +
+                        " join o.delivery d" +
+                        " join o.orderItems oi" +
+                        " join oi.item i" +
+                        condition.where() +
+                        " order by o.id, oi.id", OrderFlatDto.class);
+        return condition.bind(query)
+                .setMaxResults(maxRows)
                 .getResultList();
     }
-}
\ No newline at end of file
+
+    /**
+     * 전체 주문 스트리밍 export
+     * getResultList()로 전부 메모리에 올리지 않고 forward-only 커서로 fetch size만큼씩 읽어옴
+     * order by o.id로 정렬되어 있으므로 같은 orderId의 연속된 row를 주문 하나로 접어서 consumer에 넘기고 바로 버림
+     * 메모리에는 fetch size만큼의 row와 주문 하나만 남으므로 주문 수와 무관하게 일정
+     * @return 내보낸 주문 수
+     */
+    @Transactional(readOnly = true)
+    public long exportAllByDto_flat(Consumer<OrderQueryDto> consumer) {
+        ScrollableResults rows = em.createQuery(
+                "select new jpabook.jpashop.repository.order.query.OrderFlatDto(o.id, m.name, o.orderDate, o.status, d.address, i.name, oi.orderPrice, oi.count)" +
+                        " from Order o" +
+                        " join o.member m" +
+                        " join o.delivery d" +
+                        " join o.orderItems oi" +
+                        " join oi.item i" +
+                        " order by o.id, oi.id", OrderFlatDto.class)
+                .unwrap(Query.class)
+                .setFetchSize(exportFetchSize)
+                .setReadOnly(true)
+                .scroll(ScrollMode.FORWARD_ONLY);
+
+        OrderFlatAssembler assembler = new OrderFlatAssembler(consumer);
+        long rowCount = 0;
+        try {
+            while (rows.next()) {
+                assembler.add((OrderFlatDto) rows.get(0));
+
+                //DTO 조회라 영속성 컨텍스트에 쌓이는건 없지만 혹시 같이 올라온 엔티티가 있으면 fetch size마다 비워줌
+                if (++rowCount % exportFetchSize == 0) {
+                    em.clear();
+                }
+            }
+            assembler.finish();
+        } finally {
+            rows.close();
+        }
+        return assembler.getAssembledCount();
+    }
+}
@@ -0,0 +1,85 @@
+package jpabook.jpashop.repository.order.query;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jpabook.jpashop.event.ItemChangedEvent;
+import jpabook.jpashop.event.MemberChangedEvent;
+import jpabook.jpashop.event.OrderChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 주문 id별로 조립이 끝난 OrderQueryDto 캐시
+ * 주문은 한번 생성되면 거의 안바뀌므로 매번 SQL로 다시 만들 필요가 없음
+ * - 개수(maximum-size)와 시간(expire-after-write) 기준으로 제거
+ * - 주문 생성/취소는 커밋이 끝난 뒤에 해당 주문만 무효화
+ * - 회원 이름, 상품 이름은 DTO에 복사되어 있으므로 이름이 바뀌면 커밋 후에 전부 비움
+ *   DTO에 회원/상품 id가 없어서 어느 주문인지 찾을 수 없음, 이름 변경은 드물어서 전부 비워도 다시 채우는 비용이 작음
+ * - hit/miss/eviction은 /actuator/metrics/cache.gets, cache.evictions (cache=orderView)
+ * DTO는 값을 바꿀 수 있으므로 넣을때와 꺼낼때 복사, 요청 하나가 받은 DTO를 고쳐도 캐시와 다른 요청은 그대로
+ */
+@Component
+public class OrderViewCache {
+
+    private final Cache<Long, OrderQueryDto> cache;
+
+    public OrderViewCache(MeterRegistry meterRegistry,
+                          @Value("${jpashop.cache.order-view.maximum-size:10000}") long maximumSize,
+                          @Value("${jpashop.cache.order-view.expire-after-write-seconds:600}") long expireAfterWriteSeconds) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(expireAfterWriteSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "orderView");
+    }
+
+    public Map<Long, OrderQueryDto> getAllPresent(Collection<Long> orderIds) {
+        Map<Long, OrderQueryDto> present = cache.getAllPresent(orderIds);
+        Map<Long, OrderQueryDto> copies = new HashMap<>(present.size() * 2);
+        present.forEach((orderId, order) -> copies.put(orderId, order.copy()));
+        return copies;
+    }
+
+    //넣은 뒤 호출한 쪽이 DTO를 고쳐도 캐시에는 영향이 없게 복사본을 넣음
+    public void putAll(List<OrderQueryDto> orders) {
+        for (OrderQueryDto order : orders) {
+            cache.put(order.getOrderId(), order.copy());
+        }
+    }
+
+    public void evict(Collection<Long> orderIds) {
+        cache.invalidateAll(orderIds);
+    }
+
+    //트랜잭션이 롤백되면 호출되지 않음, 커밋 전에 지우면 그 사이에 옛날 값이 다시 캐시될 수 있음
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onOrderChanged(OrderChangedEvent event) {
+        evict(event.getOrderIds());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onMemberChanged(MemberChangedEvent event) {
+        if (event.isRenamed()) {
+            cache.invalidateAll();
+        }
+    }
+
+    //재고만 바뀐 경우(주문, 취소)는 DTO에 재고가 없으므로 그대로 둠
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onItemChanged(ItemChangedEvent event) {
+        if (event.isRenamed()) {
+            cache.invalidateAll();
+        }
+    }
+}
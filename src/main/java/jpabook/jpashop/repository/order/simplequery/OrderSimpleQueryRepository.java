@@ -1,9 +1,12 @@
 package jpabook.jpashop.repository.order.simplequery;
 
+import jpabook.jpashop.repository.CursorPage;
+import jpabook.jpashop.repository.OrderQueryCondition;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
 import java.util.List;
 
 //별도로 뽑아내 유지보수성 좋음, 오직 엔티티를 조회하는 리포지토리가 아니므로
@@ -21,12 +24,18 @@ public class OrderSimpleQueryRepository {
     //리포지토리 재사용성 떨어짐, API 스펙에 맞춘 코드가 리포지토리에 들어가는 단점
     //JPA는 엔티티나 가본값을 반환할 수 있음, DTO는 New Operation사용해야함
     //OrderSimpleQueryDto.class는 반환타입
-    public List<OrderSimpleQueryDto> findOrderDtos() {
-        return em.createQuery(
+    //주문 id 키셋 페이징 + 상태, 주문시간 필터, 다음 페이지 확인용으로 limit + 1개 읽음
+    public CursorPage<OrderSimpleQueryDto> findOrderDtos(OrderQueryCondition condition) {
+        TypedQuery<OrderSimpleQueryDto> query = em.createQuery(
                 "select new jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryDto(o.id, m.name, o.orderDate, o.status, d.address)" +
                         " from Order o" +
                         " join o.member m" +
-                        " join o.delivery d", OrderSimpleQueryDto.class)
+                        " join o.delivery d" +
+                        condition.where() +
+                        " order by o.id", OrderSimpleQueryDto.class);
+        List<OrderSimpleQueryDto> fetched = condition.bind(query)
+                .setMaxResults(condition.getLimit() + 1)
                 .getResultList();
+        return CursorPage.of(fetched, condition.getLimit(), OrderSimpleQueryDto::getOrderId);
     }
 }
\ No newline at end of file
@@ -0,0 +1,26 @@
+package jpabook.jpashop.service;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 대량 취소 결과, 요청한 주문 순서대로 주문별 결과와 처리량
+ */
+@Getter
+public class BulkCancelResult {
+
+    private final List<OrderCancelResult> results;
+    private final long canceledCount;
+    private final long elapsedMs;
+    private final double ordersPerSecond;
+
+    public BulkCancelResult(List<OrderCancelResult> results, long elapsedNanos) {
+        this.results = results;
+        this.canceledCount = results.stream()
+                .filter(result -> result.getStatus() == OrderCancelResult.Status.CANCELED)
+                .count();
+        this.elapsedMs = elapsedNanos / 1_000_000;
+        this.ordersPerSecond = elapsedNanos == 0 ? 0 : results.size() * 1_000_000_000.0 / elapsedNanos;
+    }
+}
@@ -0,0 +1,24 @@
+package jpabook.jpashop.service;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 대량 주문 결과, 요청 순서대로 주문 id와 처리량
+ */
+@Getter
+public class BulkOrderResult {
+
+    private final List<Long> orderIds;
+    private final int lineCount;
+    private final long elapsedMs;
+    private final double ordersPerSecond;
+
+    public BulkOrderResult(List<Long> orderIds, int lineCount, long elapsedNanos) {
+        this.orderIds = orderIds;
+        this.lineCount = lineCount;
+        this.elapsedMs = elapsedNanos / 1_000_000;
+        this.ordersPerSecond = elapsedNanos == 0 ? 0 : orderIds.size() * 1_000_000_000.0 / elapsedNanos;
+    }
+}
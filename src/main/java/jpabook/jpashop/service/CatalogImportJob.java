@@ -0,0 +1,154 @@
+package jpabook.jpashop.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.event.ItemChangedEvent;
+import jpabook.jpashop.repository.ItemRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 공급사 카탈로그(책, 앨범, 영화) 가져오기, sku가 같은 상품이 있으면 수정 없으면 등록
+ * - 파일은 CatalogRecordReader로 한 행씩 읽고 chunk-size행마다 트랜잭션 하나
+ * - 청크의 sku들을 IN 쿼리 한번으로 찾음, 행마다 merge(select)하지 않음
+ * - insert/update는 hibernate.jdbc.batch_size 단위로 묶여서 나가고, 커밋하면 영속성 컨텍스트도 비워짐
+ * 청크가 실패하면 앞 청크들은 커밋된 상태로 예외가 올라감, 같은 파일을 다시 넣어도 sku로 찾아서 수정하므로 중복되지 않음
+ */
+@Slf4j
+@Component
+public class CatalogImportJob {
+
+    private final ItemRepository itemRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final Timer chunkTimer;
+
+    @Value("${jpashop.catalog-import.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${jpashop.catalog-import.max-reported-rejects:1000}")
+    private int maxReportedRejects;
+
+    public CatalogImportJob(ItemRepository itemRepository, ApplicationEventPublisher eventPublisher,
+                            PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.itemRepository = itemRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkTimer = meterRegistry.timer("catalog.import.chunk");
+    }
+
+    public CatalogImportResult run(CatalogRecordReader reader) throws IOException {
+        long started = System.nanoTime();
+        long rows = 0;
+        long inserted = 0;
+        long updated = 0;
+        long rejected = 0;
+        List<CatalogImportResult.Rejected> rejectedRows = new ArrayList<>();
+
+        List<Line> chunk = new ArrayList<>(chunkSize);
+        CatalogRecordReader.Record record;
+        while (true) {
+            record = reader.next();
+            if (record != null) {
+                rows++;
+                try {
+                    if (record.getError() != null) {
+                        throw new IllegalArgumentException(record.getError());
+                    }
+                    chunk.add(new Line(record.getLine(), CatalogRow.parse(record.getFields())));
+                } catch (IllegalArgumentException e) {
+                    rejected++;
+                    if (rejectedRows.size() < maxReportedRejects) {
+                        rejectedRows.add(new CatalogImportResult.Rejected(record.getLine(), e.getMessage()));
+                    }
+                }
+            }
+            if (chunk.size() >= chunkSize || (record == null && !chunk.isEmpty())) {
+                List<Line> lines = chunk;
+                ChunkResult result = chunkTimer.record(() -> transactionTemplate.execute(status -> upsert(lines)));
+                inserted += result.inserted;
+                updated += result.updated;
+                for (CatalogImportResult.Rejected reject : result.rejected) {
+                    rejected++;
+                    if (rejectedRows.size() < maxReportedRejects) {
+                        rejectedRows.add(reject);
+                    }
+                }
+                chunk = new ArrayList<>(chunkSize);
+            }
+            if (record == null) {
+                break;
+            }
+        }
+
+        CatalogImportResult result = new CatalogImportResult(rows, inserted, updated, rejected,
+                rejectedRows, System.nanoTime() - started);
+        log.info("catalog import rows={} inserted={} updated={} rejected={} rows/s={}", rows, inserted, updated,
+                rejected, String.format("%.1f", result.getRowsPerSecond()));
+        return result;
+    }
+
+    //청크 하나, 트랜잭션 안
+    private ChunkResult upsert(List<Line> lines) {
+        Map<String, Item> bySku = itemRepository.findAllBySkus(lines.stream()
+                .map(line -> line.row.getSku())
+                .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Item::getSku, Function.identity()));
+
+        ChunkResult result = new ChunkResult();
+        for (Line line : lines) {
+            CatalogRow row = line.row;
+            Item item = bySku.get(row.getSku());
+            if (item == null) {
+                item = row.newItem();
+                row.applyTo(item);
+                itemRepository.save(item);
+                bySku.put(row.getSku(), item);
+                result.inserted++;
+            } else if (row.isSameType(item)) {
+                //관리 상태 엔티티라 커밋할때 변경감지로 update, 같은 청크에 같은 sku가 또 나오면 나중 행으로 덮어씀
+                row.applyTo(item);
+                result.updated++;
+            } else {
+                result.rejected.add(new CatalogImportResult.Rejected(line.number,
+                        "같은 sku의 다른 종류 상품이 있습니다: " + row.getSku()));
+            }
+        }
+
+        //상품 스냅샷(ItemCatalog)은 커밋 후에 반영, 기존 상품을 덮어썼으면 이름이 바뀌었을 수 있음
+        List<Long> itemIds = bySku.values().stream()
+                .map(Item::getId)
+                .collect(Collectors.toList());
+        eventPublisher.publishEvent(result.updated > 0 ? ItemChangedEvent.renamed(itemIds) : new ItemChangedEvent(itemIds));
+        return result;
+    }
+
+    private static class Line {
+
+        private final long number;
+        private final CatalogRow row;
+
+        Line(long number, CatalogRow row) {
+            this.number = number;
+            this.row = row;
+        }
+    }
+
+    private static class ChunkResult {
+
+        private long inserted;
+        private long updated;
+        private final List<CatalogImportResult.Rejected> rejected = new ArrayList<>();
+    }
+}
@@ -0,0 +1,43 @@
+package jpabook.jpashop.service;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 카탈로그 가져오기 결과, 거절된 행은 앞에서부터 최대 jpashop.catalog-import.max-reported-rejects개만 담음
+ */
+@Getter
+public class CatalogImportResult {
+
+    private final long rows;
+    private final long inserted;
+    private final long updated;
+    private final long rejected;
+    private final List<Rejected> rejectedRows;
+    private final long elapsedMs;
+    private final double rowsPerSecond;
+
+    public CatalogImportResult(long rows, long inserted, long updated, long rejected,
+                               List<Rejected> rejectedRows, long elapsedNanos) {
+        this.rows = rows;
+        this.inserted = inserted;
+        this.updated = updated;
+        this.rejected = rejected;
+        this.rejectedRows = rejectedRows;
+        this.elapsedMs = elapsedNanos / 1_000_000;
+        this.rowsPerSecond = elapsedNanos == 0 ? 0 : rows * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    @Getter
+    public static class Rejected {
+
+        private final long line;
+        private final String reason;
+
+        public Rejected(long line, String reason) {
+            this.line = line;
+            this.reason = reason;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package jpabook.jpashop.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 시작할때 카탈로그 파일 가져오기, 파일이 크면 HTTP 대신 서버에서 바로
+ * java -jar jpashop.jar --jpashop.catalog-import.file=/data/catalog.csv
+ * 확장자가 .ndjson, .jsonl이면 NDJSON, 나머지는 CSV
+ */
+@Component
+@ConditionalOnProperty("jpashop.catalog-import.file")
+@RequiredArgsConstructor
+public class CatalogImportRunner implements ApplicationRunner {
+
+    private final CatalogImportJob catalogImportJob;
+    private final ObjectMapper objectMapper;
+
+    @Value("${jpashop.catalog-import.file}")
+    private Path file;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        String fileName = file.getFileName().toString();
+        boolean ndjson = fileName.endsWith(".ndjson") || fileName.endsWith(".jsonl");
+        Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+        try (CatalogRecordReader reader = ndjson
+                ? CatalogRecordReader.ndjson(in, objectMapper) : CatalogRecordReader.csv(in)) {
+            catalogImportJob.run(reader);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package jpabook.jpashop.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 카탈로그 파일을 한 행씩 읽음, 파일 전체를 메모리에 올리지 않음
+ * - CSV: 첫 줄은 헤더(type,sku,name,price,stockQuantity,author,isbn,artist,etc,director,actor 중 필요한 것)
+ *   큰따옴표로 감싼 값 안의 쉼표, 줄바꿈, "" 지원
+ * - NDJSON: 한 줄에 JSON 객체 하나, 키는 CSV 헤더와 같음
+ * 형식이 깨진 행은 error가 채워진 Record로 넘기고 다음 행을 계속 읽음
+ */
+public abstract class CatalogRecordReader implements Closeable {
+
+    protected final BufferedReader in;
+
+    protected CatalogRecordReader(Reader in) {
+        this.in = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in, 64 * 1024);
+    }
+
+    public static CatalogRecordReader csv(Reader in) {
+        return new Csv(in);
+    }
+
+    public static CatalogRecordReader ndjson(Reader in, ObjectMapper objectMapper) {
+        return new NdJson(in, objectMapper);
+    }
+
+    /**
+     * 다음 행, 끝이면 null
+     */
+    public abstract Record next() throws IOException;
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    @Getter
+    public static class Record {
+
+        private final long line; //파일에서 몇번째 줄에서 시작했는지
+        private final Map<String, String> fields;
+        private final String error;
+
+        Record(long line, Map<String, String> fields, String error) {
+            this.line = line;
+            this.fields = fields;
+            this.error = error;
+        }
+    }
+
+    private static class Csv extends CatalogRecordReader {
+
+        private String[] header;
+        private long line = 1;
+
+        Csv(Reader in) {
+            super(in);
+        }
+
+        @Override
+        public Record next() throws IOException {
+            if (header == null) {
+                List<String> names = readFields();
+                if (names == null) {
+                    return null;
+                }
+                names.set(0, names.get(0).replace("\uFEFF", "")); //UTF-8 BOM
+                header = names.stream().map(String::trim).toArray(String[]::new);
+            }
+            while (true) {
+                long start = line;
+                List<String> values = readFields();
+                if (values == null) {
+                    return null;
+                }
+                if (values.size() == 1 && values.get(0).isEmpty()) {
+                    continue; //빈 줄
+                }
+                if (values.size() != header.length) {
+                    return new Record(start, null, "컬럼 수가 헤더와 다릅니다: " + values.size());
+                }
+                Map<String, String> fields = new HashMap<>(header.length * 2);
+                for (int i = 0; i < header.length; i++) {
+                    fields.put(header[i], values.get(i));
+                }
+                return new Record(start, fields, null);
+            }
+        }
+
+        //레코드 하나, 따옴표 안의 줄바꿈은 값에 포함
+        private List<String> readFields() throws IOException {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean read = false;
+            int c;
+            while ((c = in.read()) != -1) {
+                read = true;
+                if (quoted) {
+                    if (c == '"') {
+                        in.mark(1);
+                        int next = in.read();
+                        if (next == '"') {
+                            field.append('"');
+                            continue;
+                        }
+                        quoted = false;
+                        if (next != -1) {
+                            in.reset();
+                        }
+                    } else {
+                        if (c == '\n') {
+                            line++;
+                        }
+                        field.append((char) c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n') {
+                    line++;
+                    fields.add(field.toString());
+                    return fields;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+            }
+            if (!read) {
+                return null;
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+
+    private static class NdJson extends CatalogRecordReader {
+
+        private final ObjectMapper objectMapper;
+        private long line;
+
+        NdJson(Reader in, ObjectMapper objectMapper) {
+            super(in);
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        public Record next() throws IOException {
+            String text;
+            while ((text = in.readLine()) != null) {
+                line++;
+                if (text.isBlank()) {
+                    continue;
+                }
+                try {
+                    Map<?, ?> json = objectMapper.readValue(text, Map.class);
+                    Map<String, String> fields = new HashMap<>(json.size() * 2);
+                    json.forEach((key, value) -> {
+                        if (value != null) {
+                            fields.put(String.valueOf(key), String.valueOf(value));
+                        }
+                    });
+                    return new Record(line, fields, null);
+                } catch (JsonProcessingException e) {
+                    return new Record(line, null, "JSON 형식이 아닙니다: " + e.getOriginalMessage());
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.item.Album;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.domain.item.Movie;
+import lombok.Getter;
+
+import java.util.Map;
+
+/**
+ * 검증을 마친 카탈로그 한 행
+ * 엔티티에 값을 넣기 전에 전부 검사해서, 잘못된 행 때문에 기존 상품이 반쯤 바뀌는 일이 없게
+ */
+@Getter
+public class CatalogRow {
+
+    private final String type; //B, A, M (Item의 dtype)
+    private final String sku;
+    private final String name;
+    private final int price;
+    private final int stockQuantity;
+    private final Map<String, String> fields;
+
+    private CatalogRow(String type, String sku, String name, int price, int stockQuantity, Map<String, String> fields) {
+        this.type = type;
+        this.sku = sku;
+        this.name = name;
+        this.price = price;
+        this.stockQuantity = stockQuantity;
+        this.fields = fields;
+    }
+
+    /**
+     * @throws IllegalArgumentException 필수값이 없거나 숫자가 아닐때, 메시지가 거절 사유
+     */
+    public static CatalogRow parse(Map<String, String> fields) {
+        String type = typeOf(required(fields, "type"));
+        String sku = required(fields, "sku");
+        if (sku.length() > 255) {
+            throw new IllegalArgumentException("sku가 너무 깁니다");
+        }
+        return new CatalogRow(type, sku, required(fields, "name"),
+                nonNegative(fields, "price"), nonNegative(fields, "stockQuantity"), fields);
+    }
+
+    public Item newItem() {
+        switch (type) {
+            case "B":
+                return new Book();
+            case "A":
+                return new Album();
+            default:
+                return new Movie();
+        }
+    }
+
+    //sku가 같아도 종류가 다르면(책 -> 앨범) 같은 상품으로 보지 않음, 단일 테이블이라 dtype을 바꾸려면 삭제 후 등록
+    public boolean isSameType(Item item) {
+        return newItem().getClass() == item.getClass();
+    }
+
+    public void applyTo(Item item) {
+        item.setSku(sku);
+        item.setName(name);
+        item.setPrice(price);
+        item.setStockQuantity(stockQuantity);
+        if (item instanceof Book) {
+            ((Book) item).setAuthor(optional("author"));
+            ((Book) item).setIsbn(optional("isbn"));
+        } else if (item instanceof Album) {
+            ((Album) item).setArtist(optional("artist"));
+            ((Album) item).setEtc(optional("etc"));
+        } else if (item instanceof Movie) {
+            ((Movie) item).setDirector(optional("director"));
+            ((Movie) item).setActor(optional("actor"));
+        }
+    }
+
+    private String optional(String key) {
+        String value = fields.get(key);
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private static String typeOf(String type) {
+        switch (type.toUpperCase()) {
+            case "B":
+            case "BOOK":
+                return "B";
+            case "A":
+            case "ALBUM":
+                return "A";
+            case "M":
+            case "MOVIE":
+                return "M";
+            default:
+                throw new IllegalArgumentException("알 수 없는 상품 종류입니다: " + type);
+        }
+    }
+
+    private static String required(Map<String, String> fields, String key) {
+        String value = fields.get(key);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException(key + " 값이 없습니다");
+        }
+        return value.trim();
+    }
+
+    private static int nonNegative(Map<String, String> fields, String key) {
+        String value = required(fields, key);
+        try {
+            int number = Integer.parseInt(value);
+            if (number < 0) {
+                throw new IllegalArgumentException(key + " 값은 0 이상이어야 합니다: " + value);
+            }
+            return number;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(key + " 값이 숫자가 아닙니다: " + value);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package jpabook.jpashop.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * 커밋 후 바뀐 id를 모아뒀다가 스레드 하나에서 한번에 반영(ItemCatalog, MemberDirectory)
+ * - 커밋 후 리스너(요청 스레드)는 id만 넣고 바로 돌아감, 락도 커넥션도 잡지 않음
+ * - 반영하는 동안 들어온 id는 다음 번에 모아서 한번에, 주문이 몰려도 반영 횟수는 스레드 하나가 따라갈 만큼만
+ * - 전체 재구성도 runExclusively()로 같은 스레드에서 돌려서 부분 반영과 순서가 섞이지 않음(synchronized 대신)
+ */
+@Slf4j
+class CoalescingRefresher {
+
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final ExecutorService executor;
+    private final Consumer<Set<Long>> applier;
+
+    CoalescingRefresher(String threadName, Consumer<Set<Long>> applier) {
+        this.executor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory(threadName + "-"));
+        this.applier = applier;
+    }
+
+    void add(Collection<Long> ids) {
+        pending.addAll(ids);
+        if (scheduled.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    /**
+     * 반영 스레드에서 task를 실행하고 끝날 때까지 기다림, 그 전에 넣은 id는 먼저 반영됨
+     */
+    void runExclusively(Runnable task) {
+        Future<?> future = executor.submit(task);
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("반영 대기 중 인터럽트", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    //꺼내기 전에 scheduled를 풀어야 꺼내는 중에 들어온 id가 다음 drain으로 넘어감
+    private void drain() {
+        scheduled.set(false);
+        Set<Long> ids = new HashSet<>();
+        for (Iterator<Long> it = pending.iterator(); it.hasNext(); ) {
+            ids.add(it.next());
+            it.remove();
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+        try {
+            applier.accept(ids);
+        } catch (RuntimeException e) {
+            //놓친 변경은 주기적 전체 재구성에서 맞춰짐
+            log.warn("refresh failed, ids={}", ids.size(), e);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package jpabook.jpashop.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jpabook.jpashop.event.ItemChangedEvent;
+import jpabook.jpashop.repository.CategoryRepository;
+import jpabook.jpashop.repository.ItemAdjustment;
+import jpabook.jpashop.repository.ItemRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityNotFoundException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 상품 가격/재고 일괄 조정
+ * - 대상 id를 id 순으로 chunk-size개씩 읽고(키셋), 청크마다 트랜잭션 하나에서 update 한번
+ *   상품을 엔티티로 읽지 않으므로 상품 수천개짜리 카테고리도 쿼리 (청크 수 x 2)번
+ * - 청크를 커밋하면 item 2차 캐시 리전은 하이버네이트가 비우고, 상품 스냅샷과 재고 장부는 ItemChangedEvent로 다시 읽음
+ * - 작업은 한번에 하나씩(전용 스레드), 같은 상품 행을 두 작업이 엇갈려 잡지 않게
+ * 청크가 실패하면 앞 청크들은 반영된 채로 FAILED, delta 조정은 다시 실행하면 두번 더해지므로 updated를 보고 판단
+ */
+@Slf4j
+@Component
+public class ItemAdjustmentJob {
+
+    private final ItemRepository itemRepository;
+    private final CategoryRepository categoryRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readTemplate;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "item-adjustment");
+        thread.setDaemon(true);
+        return thread;
+    });
+    //끝난 작업도 한동안 진행 상황을 조회할 수 있게
+    private final Cache<String, ItemAdjustmentProgress> jobs = Caffeine.newBuilder()
+            .maximumSize(1000)
+            .expireAfterWrite(Duration.ofHours(1))
+            .build();
+
+    @Value("${jpashop.item-adjustment.chunk-size:1000}")
+    private int chunkSize;
+
+    public ItemAdjustmentJob(ItemRepository itemRepository, CategoryRepository categoryRepository,
+                             ApplicationEventPublisher eventPublisher, PlatformTransactionManager transactionManager) {
+        this.itemRepository = itemRepository;
+        this.categoryRepository = categoryRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readTemplate = new TransactionTemplate(transactionManager);
+        this.readTemplate.setReadOnly(true);
+        this.readTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * 작업을 등록하고 바로 반환, 진행 상황은 find(jobId)
+     */
+    public ItemAdjustmentProgress submit(ItemAdjustment adjustment) {
+        adjustment.validate();
+        ItemAdjustmentProgress progress = new ItemAdjustmentProgress();
+        jobs.put(progress.getJobId(), progress);
+        executor.execute(() -> run(adjustment, progress));
+        return progress;
+    }
+
+    public Optional<ItemAdjustmentProgress> find(String jobId) {
+        return Optional.ofNullable(jobs.getIfPresent(jobId));
+    }
+
+    //submit과 같은 전용 스레드에서 실행하고 끝날때까지 기다림, 앞에 등록된 작업이 있으면 그 뒤에 실행
+    public ItemAdjustmentProgress run(ItemAdjustment adjustment) {
+        adjustment.validate();
+        ItemAdjustmentProgress progress = new ItemAdjustmentProgress();
+        jobs.put(progress.getJobId(), progress);
+        Future<?> future = executor.submit(() -> run(adjustment, progress));
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("상품 일괄 조정 대기 중 인터럽트", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        return progress;
+    }
+
+    private void run(ItemAdjustment adjustment, ItemAdjustmentProgress progress) {
+        long started = System.nanoTime();
+        try {
+            Collection<Long> categoryIds = readTemplate.execute(status -> categoryIdsOf(adjustment));
+            if (adjustment.getItemIds() != null) {
+                runForIds(adjustment, progress, started);
+            } else {
+                progress.start(readTemplate.execute(status ->
+                        itemRepository.countAdjustmentTargets(adjustment, categoryIds)));
+                long afterId = 0;
+                while (true) {
+                    long after = afterId;
+                    List<Long> ids = readTemplate.execute(status ->
+                            itemRepository.findAdjustmentTargetIds(adjustment, categoryIds, after, chunkSize));
+                    if (ids.isEmpty()) {
+                        break;
+                    }
+                    adjustChunk(ids, adjustment, progress, started);
+                    afterId = ids.get(ids.size() - 1);
+                }
+            }
+            progress.done(elapsedMs(started));
+            log.info("item adjustment {} updated={} chunks={} elapsedMs={}", progress.getJobId(),
+                    progress.getUpdated(), progress.getChunks(), progress.getElapsedMs());
+        } catch (RuntimeException e) {
+            log.warn("item adjustment {} failed after {} items", progress.getJobId(), progress.getUpdated(), e);
+            progress.failed(e.getMessage(), elapsedMs(started));
+        }
+    }
+
+    private void runForIds(ItemAdjustment adjustment, ItemAdjustmentProgress progress, long started) {
+        List<Long> ids = new ArrayList<>(new TreeSet<>(adjustment.getItemIds())); //id 순, 중복 제거
+        progress.start(ids.size());
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            adjustChunk(ids.subList(from, Math.min(from + chunkSize, ids.size())), adjustment, progress, started);
+        }
+    }
+
+    private void adjustChunk(List<Long> ids, ItemAdjustment adjustment, ItemAdjustmentProgress progress, long started) {
+        Integer updated = transactionTemplate.execute(status -> {
+            int rows = itemRepository.adjust(ids, adjustment);
+            eventPublisher.publishEvent(new ItemChangedEvent(ids));
+            return rows;
+        });
+        progress.chunkDone(updated, elapsedMs(started));
+    }
+
+    private Collection<Long> categoryIdsOf(ItemAdjustment adjustment) {
+        if (adjustment.getCategoryId() == null) {
+            return null;
+        }
+        if (categoryRepository.findOne(adjustment.getCategoryId()) == null) {
+            throw new EntityNotFoundException("카테고리가 없습니다: " + adjustment.getCategoryId());
+        }
+        return adjustment.isIncludeSubcategories()
+                ? categoryRepository.findSubtreeIds(adjustment.getCategoryId())
+                : List.of(adjustment.getCategoryId());
+    }
+
+    private static long elapsedMs(long started) {
+        return (System.nanoTime() - started) / 1_000_000;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
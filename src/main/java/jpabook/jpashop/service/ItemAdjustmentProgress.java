@@ -0,0 +1,56 @@
+package jpabook.jpashop.service;
+
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * 일괄 조정 작업 진행 상황, 작업 스레드가 청크마다 갱신하고 조회 API가 읽음
+ */
+@Getter
+public class ItemAdjustmentProgress {
+
+    public enum State {
+        QUEUED, RUNNING, DONE, FAILED
+    }
+
+    private final String jobId = UUID.randomUUID().toString();
+    private final Instant createdAt = Instant.now();
+    private volatile State state = State.QUEUED;
+    private volatile long total;
+    private volatile long updated;
+    private volatile int chunks;
+    private volatile long elapsedMs;
+    private volatile String error;
+
+    void start(long total) {
+        this.total = total;
+        this.state = State.RUNNING;
+    }
+
+    void chunkDone(int updatedRows, long elapsedMs) {
+        this.updated += updatedRows;
+        this.chunks++;
+        this.elapsedMs = elapsedMs;
+    }
+
+    void done(long elapsedMs) {
+        this.elapsedMs = elapsedMs;
+        this.state = State.DONE;
+    }
+
+    void failed(String error, long elapsedMs) {
+        this.error = error;
+        this.elapsedMs = elapsedMs;
+        this.state = State.FAILED;
+    }
+
+    //0 ~ 100, 대상 수를 센 뒤 새로 들어온 상품까지 바뀌면 100을 넘지 않게
+    public int getPercent() {
+        if (state == State.DONE) {
+            return 100;
+        }
+        return total == 0 ? 0 : (int) Math.min(99, updated * 100 / total);
+    }
+}
@@ -0,0 +1,187 @@
+package jpabook.jpashop.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.event.ItemChangedEvent;
+import jpabook.jpashop.repository.ItemRepository;
+import jpabook.jpashop.repository.NameMatch;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * 상품 목록의 메모리 스냅샷(copy-on-write)
+ * 상품 목록, 주문 화면은 매번 select i from Item i 를 하지 않고 여기서 바로 읽음
+ * - 읽기: volatile 필드에서 현재 스냅샷을 꺼내기만 하므로 락이 없음
+ * - 쓰기: 상품 저장/수정, 주문/취소로 재고가 바뀌면 커밋 후에 바뀐 상품 id만 모아두고
+ *   반영 스레드 하나(CoalescingRefresher)가 모인 상품만 다시 읽어서 새 스냅샷을 만들어 교체
+ *   커밋한 요청 스레드는 기다리지 않고, 커넥션도 더 잡지 않음
+ * - 이벤트 없이 바뀐 경우(다른 서버, 직접 SQL 등)를 위해 주기적으로 전체 재구성
+ * 마지막 반영 후 얼마나 지났는지는 getStaleness(), /actuator/metrics/item.catalog.staleness
+ */
+@Slf4j
+@Component
+public class ItemCatalog {
+
+    private final ItemRepository itemRepository;
+    private final TransactionTemplate readTx;
+    private final CoalescingRefresher refresher;
+
+    //반영 스레드만 바꾸고 읽는 쪽은 락 없이 읽음
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    public ItemCatalog(ItemRepository itemRepository, PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.itemRepository = itemRepository;
+        //읽기만 하지만 readOnly로 두지 않음, 반영 스레드는 커밋한 스레드가 아니라서 replica로 가면 방금 커밋한 값이 안보일 수 있음
+        this.readTx = new TransactionTemplate(transactionManager);
+        this.refresher = new CoalescingRefresher("item-catalog", this::refresh);
+        Gauge.builder("item.catalog.staleness", this, c -> c.getStaleness().toMillis() / 1000.0)
+                .description("상품 스냅샷이 마지막으로 갱신된 후 지난 시간")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("item.catalog.size", this, c -> c.getItems().size())
+                .register(meterRegistry);
+    }
+
+    public List<ItemSummary> getItems() {
+        return snapshot.getItems();
+    }
+
+    public Optional<ItemSummary> findOne(Long itemId) {
+        return Optional.ofNullable(snapshot.getById().get(itemId));
+    }
+
+    //주문 화면 자동완성
+    public List<NameMatch> searchByName(String prefix, int limit) {
+        return snapshot.getByName().search(prefix, limit);
+    }
+
+    public Duration getStaleness() {
+        return Duration.between(snapshot.getUpdatedAt(), Instant.now());
+    }
+
+    /**
+     * 전체 재구성, 애플리케이션이 뜬 직후(InitDb 이후)와 주기적으로
+     * 반영 스레드에서 돌리므로 부분 반영과 겹치지 않음, 먼저 읽은 값이 나중에 덮어쓰는 일이 없게
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${jpashop.catalog.rebuild-interval-ms:300000}",
+            fixedDelayString = "${jpashop.catalog.rebuild-interval-ms:300000}")
+    public void rebuild() {
+        refresher.runExclusively(() -> {
+            List<ItemSummary> items = readTx.execute(status -> {
+                List<ItemSummary> summaries = new ArrayList<>();
+                for (Item item : itemRepository.findAllReadOnly()) {
+                    summaries.add(ItemSummary.from(item));
+                }
+                return summaries;
+            });
+            snapshot = Snapshot.of(items);
+            log.info("item catalog rebuilt, size={}", items.size());
+        });
+    }
+
+    /**
+     * 커밋 후 바뀐 상품 id만 모아둠, 반영은 반영 스레드에서
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onItemChanged(ItemChangedEvent event) {
+        refresher.add(event.getItemIds());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdown();
+    }
+
+    /**
+     * 모인 상품만 다시 읽어서 반영, 다시 읽었는데 없으면 삭제된 것
+     */
+    private void refresh(Set<Long> itemIds) {
+        Map<Long, ItemSummary> changed = readTx.execute(status -> {
+            Map<Long, ItemSummary> summaries = new HashMap<>();
+            for (Item item : itemRepository.findAllReadOnly(itemIds)) {
+                summaries.put(item.getId(), ItemSummary.from(item));
+            }
+            return summaries;
+        });
+        snapshot = snapshot.with(itemIds, changed);
+    }
+
+    @Getter
+    static class Snapshot {
+
+        static final Snapshot EMPTY = new Snapshot(List.of(), Map.of(), NamePrefixIndex.EMPTY, Instant.EPOCH);
+
+        private final List<ItemSummary> items; //id 순
+        private final Map<Long, ItemSummary> byId;
+        private final NamePrefixIndex byName;
+        private final Instant updatedAt;
+
+        private Snapshot(List<ItemSummary> items, Map<Long, ItemSummary> byId, NamePrefixIndex byName, Instant updatedAt) {
+            this.items = items;
+            this.byId = byId;
+            this.byName = byName;
+            this.updatedAt = updatedAt;
+        }
+
+        static Snapshot of(Collection<ItemSummary> summaries) {
+            Map<Long, ItemSummary> byId = new TreeMap<>();
+            for (ItemSummary summary : summaries) {
+                byId.put(summary.getId(), summary);
+            }
+            List<NameMatch> names = new ArrayList<>(byId.size());
+            for (ItemSummary summary : byId.values()) {
+                names.add(new NameMatch(summary.getId(), summary.getName()));
+            }
+            return new Snapshot(List.copyOf(byId.values()), Collections.unmodifiableMap(byId),
+                    NamePrefixIndex.of(names), Instant.now());
+        }
+
+        /**
+         * 기존 스냅샷은 그대로 두고 바뀐 것만 합친 새 스냅샷, 전체를 다시 정렬하지 않음
+         * items는 id 순 병합으로, 이름 인덱스는 NamePrefixIndex.with()로 한번씩만 복사
+         */
+        Snapshot with(Collection<Long> itemIds, Map<Long, ItemSummary> changed) {
+            Set<Long> touched = new HashSet<>(itemIds);
+            List<ItemSummary> added = new ArrayList<>(changed.values());
+            added.sort(Comparator.comparing(ItemSummary::getId));
+
+            List<ItemSummary> nextItems = new ArrayList<>(items.size() + added.size());
+            int j = 0;
+            for (ItemSummary item : items) {
+                while (j < added.size() && added.get(j).getId() < item.getId()) {
+                    nextItems.add(added.get(j++));
+                }
+                if (!touched.contains(item.getId())) {
+                    nextItems.add(item);
+                }
+            }
+            nextItems.addAll(added.subList(j, added.size()));
+
+            Map<Long, ItemSummary> nextById = new HashMap<>(byId);
+            nextById.keySet().removeAll(touched);
+            nextById.putAll(changed);
+
+            List<NameMatch> names = new ArrayList<>(added.size());
+            for (ItemSummary summary : added) {
+                names.add(new NameMatch(summary.getId(), summary.getName()));
+            }
+            return new Snapshot(Collections.unmodifiableList(nextItems), Collections.unmodifiableMap(nextById),
+                    byName.with(touched, names), Instant.now());
+        }
+    }
+}
@@ -1,12 +1,19 @@
 package jpabook.jpashop.service;
 
 import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.event.ItemChangedEvent;
+import jpabook.jpashop.exception.InvalidRequestException;
+import jpabook.jpashop.repository.ItemPatch;
 import jpabook.jpashop.repository.ItemRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityNotFoundException;
 import java.util.List;
+import java.util.Objects;
 
 @Service
 @Transactional(readOnly = true)
@@ -14,18 +21,58 @@ import java.util.List;
 public class ItemService {
 
     private final ItemRepository itemRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public void saveItem(Item item) {
         itemRepository.save(item);
+        //상품 스냅샷(ItemCatalog)은 커밋 후에 반영
+        eventPublisher.publishEvent(ItemChangedEvent.of(item.getId()));
     }
 
     @Transactional
     public void updateItem(Long itemId, String name, int price, int stockQuantity) {
         Item item = itemRepository.findOne(itemId);
+        boolean renamed = !Objects.equals(item.getName(), name);
         item.setName(name);
         item.setPrice(price);
         item.setStockQuantity(stockQuantity);
+        eventPublisher.publishEvent(renamed ? ItemChangedEvent.renamed(List.of(itemId)) : ItemChangedEvent.of(itemId));
+    }
+
+    /**
+     * 부분 수정, 바뀐 값만 update 하고 수정 후 version을 돌려줌
+     * - patch.version이 있으면 읽지 않고 update 한번, 실패했을때만 읽어서 이유를 구분
+     * - 없으면 읽고 바꾸기(@DynamicUpdate라 바뀐 컬럼만), 동시 수정은 커밋할때 @Version으로 감지
+     * @throws ObjectOptimisticLockingFailureException version이 다를때(API에서는 409)
+     */
+    @Transactional
+    public Long patchItem(Long itemId, ItemPatch patch) {
+        Long version;
+        if (patch.getVersion() == null) {
+            Item item = findExisting(itemId);
+            patch.applyTo(item);
+            itemRepository.flush();
+            version = item.getVersion();
+        } else if (itemRepository.patch(itemId, patch) > 0) {
+            version = patch.getVersion() + 1;
+        } else {
+            Item item = findExisting(itemId);
+            if (!patch.targetType().isInstance(item)) {
+                throw new InvalidRequestException("상품 종류가 다릅니다: " + itemId);
+            }
+            throw new ObjectOptimisticLockingFailureException(Item.class, itemId);
+        }
+        eventPublisher.publishEvent(patch.getName() != null ? ItemChangedEvent.renamed(List.of(itemId)) : ItemChangedEvent.of(itemId));
+        return version;
+    }
+
+    private Item findExisting(Long itemId) {
+        Item item = itemRepository.findOne(itemId);
+        if (item == null) {
+            throw new EntityNotFoundException("상품이 없습니다: " + itemId);
+        }
+        return item;
     }
 
     public List<Item> findItems() {
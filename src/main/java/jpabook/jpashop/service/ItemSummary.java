@@ -0,0 +1,32 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.item.Item;
+import lombok.Getter;
+import org.hibernate.Hibernate;
+
+/**
+ * 상품 목록 화면, 주문 화면용 상품 요약(불변)
+ * 엔티티가 아니므로 영속성 컨텍스트와 상관없이 여러 스레드가 같이 봐도 됨
+ */
+@Getter
+public class ItemSummary {
+
+    private final Long id;
+    private final String name;
+    private final int price;
+    private final int stockQuantity;
+    private final String type; //Book, Album, Movie
+
+    public ItemSummary(Long id, String name, int price, int stockQuantity, String type) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+        this.stockQuantity = stockQuantity;
+        this.type = type;
+    }
+
+    public static ItemSummary from(Item item) {
+        return new ItemSummary(item.getId(), item.getName(), item.getPrice(), item.getStockQuantity(),
+                Hibernate.getClass(item).getSimpleName());
+    }
+}
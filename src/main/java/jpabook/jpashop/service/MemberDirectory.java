@@ -0,0 +1,76 @@
+package jpabook.jpashop.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jpabook.jpashop.event.MemberChangedEvent;
+import jpabook.jpashop.repository.MemberRepository;
+import jpabook.jpashop.repository.NameMatch;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 회원 이름 자동완성용 메모리 인덱스
+ * 주문 화면에서 회원 전체를 읽지 않고 입력한 앞부분으로 찾음
+ * 가입, 이름 변경은 커밋 후에 바뀐 회원 id만 모아두고 반영 스레드에서 그 회원만 다시 읽어 합침(ItemCatalog와 같은 방식)
+ * 그 외(직접 SQL 등)는 주기적 재구성으로
+ */
+@Slf4j
+@Component
+public class MemberDirectory {
+
+    private final MemberRepository memberRepository;
+    private final TransactionTemplate readTx;
+    private final CoalescingRefresher refresher;
+
+    private volatile NamePrefixIndex index = NamePrefixIndex.EMPTY;
+
+    public MemberDirectory(MemberRepository memberRepository, PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.memberRepository = memberRepository;
+        //방금 커밋한 이름이 보여야 하므로 replica로 보내지 않음(readOnly 아님)
+        this.readTx = new TransactionTemplate(transactionManager);
+        this.refresher = new CoalescingRefresher("member-directory", this::refresh);
+        Gauge.builder("member.directory.size", this, d -> d.index.size())
+                .register(meterRegistry);
+    }
+
+    public List<NameMatch> search(String prefix, int limit) {
+        return index.search(prefix, limit);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${jpashop.typeahead.rebuild-interval-ms:300000}",
+            fixedDelayString = "${jpashop.typeahead.rebuild-interval-ms:300000}")
+    public void rebuild() {
+        refresher.runExclusively(() -> {
+            NamePrefixIndex rebuilt = NamePrefixIndex.of(readTx.execute(status -> memberRepository.findAllNames()));
+            index = rebuilt;
+            log.info("member directory rebuilt, size={}", rebuilt.size());
+        });
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onMemberChanged(MemberChangedEvent event) {
+        refresher.add(event.getMemberIds());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdown();
+    }
+
+    private void refresh(Set<Long> memberIds) {
+        List<NameMatch> changed = readTx.execute(status -> memberRepository.findNamesByIdIn(memberIds));
+        index = index.with(memberIds, changed);
+    }
+}
@@ -1,12 +1,17 @@
 package jpabook.jpashop.service;
 
 import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.event.MemberChangedEvent;
+import jpabook.jpashop.repository.MemberPatch;
 import jpabook.jpashop.repository.MemberRepository;
 import jpabook.jpashop.repository.MemberRepositoryOld;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityNotFoundException;
 import java.util.List;
 
 @Service
@@ -15,6 +20,7 @@ import java.util.List;
 public class MemberService {
 
     private final MemberRepository memberRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * 회원 가입
@@ -24,6 +30,7 @@ public class MemberService {
 
         validateDuplicateMember(member); //중복 회원 검증
         memberRepository.save(member);
+        eventPublisher.publishEvent(MemberChangedEvent.of(member.getId()));
         return member.getId();
     }
 
@@ -66,6 +73,34 @@ public class MemberService {
         //이 메서드 종료되면서 스프링 AOP가 동작하면서 @Transactional에 의해
         //트랜잭션 AOP가 끝나는 시점에 트랜잭션이 커밋이 됨
         member.setName(name);
+        eventPublisher.publishEvent(MemberChangedEvent.renamed(id));
+    }
+
+    /**
+     * 부분 수정, 바뀐 값만 update 하고 수정 후 version을 돌려줌
+     * patch.version이 있으면 읽지 않고 update 한번, 없으면 읽고 바꾸기(@DynamicUpdate)
+     * @throws ObjectOptimisticLockingFailureException version이 다를때(API에서는 409)
+     */
+    @Transactional
+    public Long patch(Long id, MemberPatch patch) {
+        Long version;
+        if (patch.getVersion() == null) {
+            Member member = memberRepository.findById(id)
+                    .orElseThrow(() -> new EntityNotFoundException("회원이 없습니다: " + id));
+            patch.applyTo(member);
+            memberRepository.flush();
+            version = member.getVersion();
+        } else if (memberRepository.patch(id, patch) > 0) {
+            version = patch.getVersion() + 1;
+        } else if (!memberRepository.existsById(id)) {
+            throw new EntityNotFoundException("회원이 없습니다: " + id);
+        } else {
+            throw new ObjectOptimisticLockingFailureException(Member.class, id);
+        }
+        if (patch.getName() != null) {
+            eventPublisher.publishEvent(MemberChangedEvent.renamed(id));
+        }
+        return version;
     }
 
 }
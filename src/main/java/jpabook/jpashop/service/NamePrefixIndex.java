@@ -0,0 +1,113 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.repository.NameMatch;
+
+import java.util.*;
+
+/**
+ * 이름 앞부분 검색용 인덱스(불변)
+ * 소문자로 바꾼 이름을 정렬된 배열에 두고 이진 탐색으로 접두어가 시작하는 위치를 찾은 뒤
+ * 접두어가 맞는 동안만 limit개까지 읽음, 전체 건수와 상관없이 O(log n + limit)
+ * 바뀐 건이 있으면 with()로 기존 정렬에 합친 새 인덱스를 만들어 통째로 교체
+ */
+public final class NamePrefixIndex {
+
+    public static final NamePrefixIndex EMPTY = new NamePrefixIndex(new String[0], new NameMatch[0]);
+
+    private static final Comparator<NameMatch> ORDER =
+            Comparator.comparing((NameMatch match) -> normalize(match.getName()))
+                    .thenComparing(NameMatch::getId);
+
+    private final String[] keys; //정규화된 이름, 정렬됨
+    private final NameMatch[] matches; //keys와 같은 순서
+
+    private NamePrefixIndex(String[] keys, NameMatch[] matches) {
+        this.keys = keys;
+        this.matches = matches;
+    }
+
+    //이름이 없는 건 검색될 일이 없으므로 뺌
+    public static NamePrefixIndex of(Collection<NameMatch> all) {
+        NameMatch[] matches = all.stream()
+                .filter(match -> match.getName() != null)
+                .sorted(ORDER)
+                .toArray(NameMatch[]::new);
+        String[] keys = new String[matches.length];
+        for (int i = 0; i < matches.length; i++) {
+            keys[i] = normalize(matches[i].getName());
+        }
+        return new NamePrefixIndex(keys, matches);
+    }
+
+    /**
+     * ids에 해당하는 기존 항목을 빼고 changed를 넣은 새 인덱스, changed에 없는 id는 삭제된 것
+     * 바뀐 것만 정렬하고 기존 배열과 한번 훑으면서 합침, 기존 항목은 다시 정규화하거나 정렬하지 않음 O(n + k log k)
+     */
+    public NamePrefixIndex with(Collection<Long> ids, Collection<NameMatch> changed) {
+        Set<Long> removed = new HashSet<>(ids);
+        NamePrefixIndex added = of(changed);
+        int capacity = matches.length + added.matches.length;
+        String[] nextKeys = new String[capacity];
+        NameMatch[] nextMatches = new NameMatch[capacity];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < matches.length || j < added.matches.length) {
+            if (i < matches.length && removed.contains(matches[i].getId())) {
+                i++;
+                continue;
+            }
+            boolean takeAdded = i == matches.length
+                    || (j < added.matches.length && compare(added.keys[j], added.matches[j], keys[i], matches[i]) < 0);
+            if (takeAdded) {
+                nextKeys[size] = added.keys[j];
+                nextMatches[size++] = added.matches[j++];
+            } else {
+                nextKeys[size] = keys[i];
+                nextMatches[size++] = matches[i++];
+            }
+        }
+        return new NamePrefixIndex(Arrays.copyOf(nextKeys, size), Arrays.copyOf(nextMatches, size));
+    }
+
+    public List<NameMatch> search(String prefix, int limit) {
+        if (prefix == null || prefix.isBlank() || limit <= 0) {
+            return List.of();
+        }
+        String key = normalize(prefix);
+        List<NameMatch> result = new ArrayList<>(Math.min(limit, 16));
+        for (int i = lowerBound(key); i < keys.length && result.size() < limit && keys[i].startsWith(key); i++) {
+            result.add(matches[i]);
+        }
+        return result;
+    }
+
+    public int size() {
+        return matches.length;
+    }
+
+    //key 이상인 첫 위치
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    //ORDER와 같은 순서, 정규화는 이미 해둔 key로
+    private static int compare(String key, NameMatch match, String otherKey, NameMatch other) {
+        int byKey = key.compareTo(otherKey);
+        return byKey != 0 ? byKey : match.getId().compareTo(other.getId());
+    }
+
+    private static String normalize(String name) {
+        return name.strip().toLowerCase(Locale.ROOT);
+    }
+}
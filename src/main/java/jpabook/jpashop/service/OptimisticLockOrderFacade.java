@@ -0,0 +1,91 @@
+package jpabook.jpashop.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.OptimisticLockException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * 주문/취소를 낙관적 락 충돌시 다시 시도
+ * 트랜잭션 밖에서 OrderService를 호출해야 충돌한 트랜잭션은 롤백되고 새 트랜잭션으로 다시 시작함
+ * 재시도 간격은 backoff * 2^(n-1) 안에서 랜덤(jitter), 같은 상품에 몰린 요청들이 또 동시에 부딪히지 않게
+ * 지표: order.stock.conflicts, order.stock.retries, order.stock.retries.exhausted
+ */
+@Slf4j
+@Component
+public class OptimisticLockOrderFacade {
+
+    private final OrderService orderService;
+    private final Counter conflicts;
+    private final Counter retries;
+    private final Counter exhausted;
+
+    @Value("${jpashop.order.retry.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${jpashop.order.retry.backoff-ms:10}")
+    private long backoffMs;
+
+    @Value("${jpashop.order.retry.max-backoff-ms:200}")
+    private long maxBackoffMs;
+
+    public OptimisticLockOrderFacade(OrderService orderService, MeterRegistry meterRegistry) {
+        this.orderService = orderService;
+        this.conflicts = meterRegistry.counter("order.stock.conflicts");
+        this.retries = meterRegistry.counter("order.stock.retries");
+        this.exhausted = meterRegistry.counter("order.stock.retries.exhausted");
+    }
+
+    public Long order(Long memberId, Long itemId, int count) {
+        return withRetry(() -> orderService.order(memberId, itemId, count));
+    }
+
+    public Long order(Long memberId, List<OrderLine> lines) {
+        return withRetry(() -> orderService.order(memberId, lines));
+    }
+
+    public BulkOrderResult placeBulk(List<OrderRequest> requests) {
+        return withRetry(() -> orderService.placeBulk(requests));
+    }
+
+    public void cancelOrder(Long orderId) {
+        withRetry(() -> {
+            orderService.cancelOrder(orderId);
+            return null;
+        });
+    }
+
+    private <T> T withRetry(Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+                conflicts.increment();
+                if (attempt >= maxAttempts) {
+                    exhausted.increment();
+                    log.warn("optimistic lock retries exhausted, attempts={}", attempt);
+                    throw e;
+                }
+                retries.increment();
+                sleep(attempt, e);
+            }
+        }
+    }
+
+    private void sleep(int attempt, RuntimeException conflict) {
+        long bound = Math.min(maxBackoffMs, backoffMs << Math.min(attempt - 1, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(bound + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw conflict;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package jpabook.jpashop.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * 대량 취소 작업, 주문 id를 chunk-size개씩 나눠서 청크마다 트랜잭션 하나(OrderService.cancelOrders)
+ * 청크가 실패하면 앞 청크들은 이미 커밋된 상태로 예외가 올라감, 같은 요청을 다시 보내면
+ * 취소된 주문은 ALREADY_CANCELED로 넘어가므로 다시 실행해도 재고가 두번 돌아오지 않음
+ * 청크별 실행 시간은 /actuator/metrics/order.cancel.bulk.chunk
+ */
+@Slf4j
+@Component
+public class OrderCancelJob {
+
+    private final OrderService orderService;
+    private final Timer chunkTimer;
+
+    @Value("${jpashop.order.bulk-cancel.chunk-size:500}")
+    private int chunkSize;
+
+    public OrderCancelJob(OrderService orderService, MeterRegistry meterRegistry) {
+        this.orderService = orderService;
+        this.chunkTimer = meterRegistry.timer("order.cancel.bulk.chunk");
+    }
+
+    public BulkCancelResult run(List<Long> orderIds) {
+        long started = System.nanoTime();
+        //같은 주문이 두번 오면 한번만, 결과는 요청 순서대로
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(orderIds));
+
+        List<OrderCancelResult> results = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            List<Long> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+            results.addAll(chunkTimer.record(() -> orderService.cancelOrders(chunk)));
+        }
+
+        BulkCancelResult result = new BulkCancelResult(results, System.nanoTime() - started);
+        log.info("bulk cancel requested={} canceled={} elapsedMs={}",
+                ids.size(), result.getCanceledCount(), result.getElapsedMs());
+        return result;
+    }
+}
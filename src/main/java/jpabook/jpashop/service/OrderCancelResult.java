@@ -0,0 +1,22 @@
+package jpabook.jpashop.service;
+
+import lombok.Getter;
+
+/**
+ * 대량 취소에서 주문 하나의 결과
+ */
+@Getter
+public class OrderCancelResult {
+
+    public enum Status {
+        CANCELED, NOT_FOUND, ALREADY_CANCELED, ALREADY_DELIVERED
+    }
+
+    private final Long orderId;
+    private final Status status;
+
+    public OrderCancelResult(Long orderId, Status status) {
+        this.orderId = orderId;
+        this.status = status;
+    }
+}
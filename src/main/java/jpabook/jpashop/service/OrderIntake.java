@@ -0,0 +1,186 @@
+package jpabook.jpashop.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 비동기 주문 접수 (jpashop.order.intake.enabled=true)
+ * - 접수: 크기가 정해진 큐에 넣고 바로 접수표 반환, 큐가 가득 차면 기다리지 않고 거절(API에서 429)
+ *   요청 스레드는 커넥션을 잡지 않으므로 트래픽이 몰려도 톰캣 스레드가 커넥션 풀 앞에서 줄서지 않음
+ * - 처리: workers개 스레드가 큐에서 최대 batch-size개씩(batch-wait-ms까지 모아서) 꺼내 대량 주문 트랜잭션 하나로
+ *   묶음 중 하나라도 실패하면(재고 부족, 없는 회원 등) 그 묶음만 건별 주문으로 다시 처리해서 실패한 접수만 FAILED
+ * - 종료: 큐에 남은 접수는 처리하고 멈춤
+ * 지표: order.intake.queue.depth, order.intake.batch.size, order.intake.latency, order.intake.rejected
+ * 접수표는 메모리에만 있으므로 서버가 죽으면 처리 전 접수는 사라짐, 클라이언트는 FAILED나 조회 실패시 다시 주문
+ * 접수표는 ticket-ttl-seconds가 지나거나 max-tickets개를 넘으면 지워짐, 처리가 끝난 접수표는 주문 내용(request)을 들고 있지 않음
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "jpashop.order.intake.enabled", havingValue = "true")
+public class OrderIntake {
+
+    private final OptimisticLockOrderFacade orderFacade;
+    private final BlockingQueue<OrderIntakeTicket> queue;
+    private final Cache<String, OrderIntakeTicket> tickets;
+    private final DistributionSummary batchSize;
+    private final Timer latency;
+    private final Counter rejected;
+    private final AtomicInteger runningWorkers = new AtomicInteger();
+    private ExecutorService workers;
+    private volatile boolean running = true;
+
+    @Value("${jpashop.order.intake.workers:2}")
+    private int workerCount;
+
+    @Value("${jpashop.order.intake.batch-size:50}")
+    private int maxBatchSize;
+
+    @Value("${jpashop.order.intake.batch-wait-ms:5}")
+    private long batchWaitMs;
+
+    public OrderIntake(OptimisticLockOrderFacade orderFacade, MeterRegistry meterRegistry,
+                       @Value("${jpashop.order.intake.queue-capacity:1000}") int queueCapacity,
+                       @Value("${jpashop.order.intake.ticket-ttl-seconds:600}") long ticketTtlSeconds,
+                       @Value("${jpashop.order.intake.max-tickets:100000}") long maxTickets) {
+        this.orderFacade = orderFacade;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        //처리 전 접수표는 큐 크기만큼이므로 max-tickets를 큐보다 넉넉히 두면 지워지는건 처리가 끝난 접수표
+        this.tickets = Caffeine.newBuilder()
+                .maximumSize(Math.max(maxTickets, queueCapacity))
+                .expireAfterWrite(Duration.ofSeconds(ticketTtlSeconds))
+                .build();
+        Gauge.builder("order.intake.queue.depth", queue, BlockingQueue::size).register(meterRegistry);
+        this.batchSize = meterRegistry.summary("order.intake.batch.size");
+        this.latency = meterRegistry.timer("order.intake.latency");
+        this.rejected = meterRegistry.counter("order.intake.rejected");
+    }
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger sequence = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "order-intake-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < workerCount; i++) {
+            workers.execute(this::drain);
+        }
+    }
+
+    /**
+     * 접수, 큐가 가득 찼으면 empty(거절)
+     */
+    public Optional<OrderIntakeTicket> submit(OrderRequest request) {
+        OrderIntakeTicket ticket = new OrderIntakeTicket(request);
+        tickets.put(ticket.getTicketId(), ticket);
+        if (!running || !queue.offer(ticket)) {
+            tickets.invalidate(ticket.getTicketId());
+            rejected.increment();
+            return Optional.empty();
+        }
+        return Optional.of(ticket);
+    }
+
+    public Optional<OrderIntakeTicket> find(String ticketId) {
+        return Optional.ofNullable(tickets.getIfPresent(ticketId));
+    }
+
+    private void drain() {
+        runningWorkers.incrementAndGet();
+        try {
+            List<OrderIntakeTicket> batch = new ArrayList<>(maxBatchSize);
+            while (running || !queue.isEmpty()) {
+                OrderIntakeTicket first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                //조금 기다려서 같이 처리할 접수를 모음, 한산할때는 batch-wait-ms 만큼만 늦어짐
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(batchWaitMs);
+                while (batch.size() < maxBatchSize) {
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= maxBatchSize || remaining <= 0) {
+                        break;
+                    }
+                    OrderIntakeTicket next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                process(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            runningWorkers.decrementAndGet();
+        }
+    }
+
+    private void process(List<OrderIntakeTicket> batch) {
+        batchSize.record(batch.size());
+        List<OrderRequest> requests = new ArrayList<>(batch.size());
+        batch.forEach(ticket -> requests.add(ticket.getRequest()));
+        try {
+            List<Long> orderIds = orderFacade.placeBulk(requests).getOrderIds();
+            for (int i = 0; i < batch.size(); i++) {
+                complete(batch.get(i), orderIds.get(i), null);
+            }
+        } catch (RuntimeException e) {
+            //묶음 트랜잭션은 롤백됨, 건별로 다시 해서 실패한 접수만 골라냄
+            log.debug("intake batch of {} failed, placing one by one: {}", batch.size(), e.getMessage());
+            for (OrderIntakeTicket ticket : batch) {
+                try {
+                    OrderRequest request = ticket.getRequest();
+                    complete(ticket, orderFacade.order(request.getMemberId(), request.getLines()), null);
+                } catch (RuntimeException single) {
+                    complete(ticket, null, single.getMessage() == null ? single.getClass().getSimpleName()
+                            : single.getMessage());
+                }
+            }
+        }
+    }
+
+    private void complete(OrderIntakeTicket ticket, Long orderId, String error) {
+        if (error == null) {
+            ticket.placed(orderId);
+        } else {
+            ticket.failed(error);
+        }
+        latency.record(ticket.getLatencyMs(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        workers.shutdown();
+        if (!workers.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("order intake stopped with {} queued, {} workers still running", queue.size(), runningWorkers.get());
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package jpabook.jpashop.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Getter;
+
+import java.util.UUID;
+
+/**
+ * 비동기 주문 접수표, 접수하면 PENDING, 작업 스레드가 처리하면 PLACED(orderId) 또는 FAILED(error)
+ * 처리가 끝나면 주문 내용(request)은 버림, 조회용 접수표가 ttl 동안 주문상품 목록까지 붙잡고 있지 않게
+ */
+@Getter
+public class OrderIntakeTicket {
+
+    public enum State {
+        PENDING, PLACED, FAILED
+    }
+
+    private final String ticketId = UUID.randomUUID().toString();
+    @JsonIgnore
+    private volatile OrderRequest request; //처리가 끝나면 null
+    @JsonIgnore
+    private final long enqueuedNanos = System.nanoTime();
+    private volatile State state = State.PENDING;
+    private volatile Long orderId;
+    private volatile String error;
+    private volatile long latencyMs; //접수부터 처리 완료까지
+
+    OrderIntakeTicket(OrderRequest request) {
+        this.request = request;
+    }
+
+    void placed(Long orderId) {
+        this.orderId = orderId;
+        complete(State.PLACED);
+    }
+
+    void failed(String error) {
+        this.error = error;
+        complete(State.FAILED);
+    }
+
+    private void complete(State state) {
+        this.latencyMs = (System.nanoTime() - enqueuedNanos) / 1_000_000;
+        this.request = null;
+        this.state = state;
+    }
+}
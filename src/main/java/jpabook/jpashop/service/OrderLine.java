@@ -0,0 +1,23 @@
+package jpabook.jpashop.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+
+/**
+ * 주문 한 줄, 상품과 수량
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderLine {
+
+    @NotNull
+    private Long itemId;
+
+    @Positive
+    private int count;
+}
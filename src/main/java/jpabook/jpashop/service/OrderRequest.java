@@ -0,0 +1,26 @@
+package jpabook.jpashop.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import java.util.List;
+
+/**
+ * 주문 하나(회원 + 여러 상품), 장바구니 주문과 대량 주문에서 사용
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderRequest {
+
+    @NotNull
+    private Long memberId;
+
+    @NotEmpty
+    @Valid
+    private List<OrderLine> lines;
+}
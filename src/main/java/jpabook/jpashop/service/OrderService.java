@@ -2,12 +2,20 @@ package jpabook.jpashop.service;
 
 import jpabook.jpashop.domain.*;
 import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.event.ItemChangedEvent;
+import jpabook.jpashop.event.OrderChangedEvent;
+import jpabook.jpashop.exception.NotEnoughStockException;
 import jpabook.jpashop.repository.*;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
+import javax.persistence.EntityNotFoundException;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional(readOnly = true)
@@ -17,6 +25,20 @@ public class OrderService {
     private final OrderRepository orderRepository;
     private final MemberRepository memberRepository;
     private final ItemRepository itemRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final StockLedger stockLedger;
+
+    //재고 차감 방식, 동시 주문 충돌시 재시도는 OptimisticLockOrderFacade
+    @Value("${jpashop.order.stock-strategy:OPTIMISTIC}")
+    private StockStrategy stockStrategy;
+
+    //대량 주문에서 몇 건마다 flush + clear 할지, hibernate.jdbc.batch_size와 맞춤
+    @Value("${jpashop.order.bulk.flush-every:100}")
+    private int bulkFlushEvery;
+
+    //상품 IN 쿼리 하나에 넣을 최대 id 수
+    @Value("${jpashop.order.bulk.in-chunk-size:1000}")
+    private int inChunkSize;
 
     /**
      * 주문
@@ -24,17 +46,16 @@ public class OrderService {
     @Transactional
     public Long order(Long memberId, Long itemId, int count) {
 
-        //엔티티 조회
-        Member member = memberRepository.findById(memberId).get();
+        //엔티티 조회, 회원은 참조(프록시)만, 배송 주소를 읽을때 회원 한 건만 읽음(2차 캐시에 있으면 SQL 없음)
+        //회원의 주문 목록은 읽지 않음(Order.setMember)
+        Member member = memberRepository.getOne(memberId);
         Item item = itemRepository.findOne(itemId);
 
         //배송정보 생성
-        Delivery delivery = new Delivery();
-        delivery.setAddress(member.getAddress());
-        delivery.setStatus(DeliveryStatus.READY);
+        Delivery delivery = createDelivery(member);
 
         //주문상품 생성
-        OrderItem orderItem = OrderItem.createOrderItem(item, item.getPrice(), count);
+        OrderItem orderItem = createOrderItem(item, count);
 
         //주문 생성
         Order order = Order.createOrder(member, delivery, orderItem);
@@ -42,9 +63,170 @@ public class OrderService {
         //주문 저장
         orderRepository.save(order);
 
+        //캐시 등은 커밋이 끝난 뒤에 반영
+        eventPublisher.publishEvent(OrderChangedEvent.of(order.getId()));
+        //장부를 쓰면 item 테이블은 나중에 반영되고 그때 StockLedger가 발행
+        if (stockStrategy != StockStrategy.LEDGER) {
+            eventPublisher.publishEvent(ItemChangedEvent.of(itemId));
+        }
+
         return order.getId();
     }
 
+    /**
+     * 장바구니 주문, 여러 상품을 주문 하나로
+     * 상품은 IN 쿼리 한번으로 조회
+     */
+    @Transactional
+    public Long order(Long memberId, List<OrderLine> lines) {
+
+        Member member = memberRepository.getOne(memberId);
+        Map<Long, Item> items = findItems(itemIdsOf(lines));
+
+        OrderItem[] orderItems = new OrderItem[lines.size()];
+        for (int i = 0; i < orderItems.length; i++) {
+            OrderLine line = lines.get(i);
+            orderItems[i] = createOrderItem(items.get(line.getItemId()), line.getCount());
+        }
+
+        Order order = Order.createOrder(member, createDelivery(member), orderItems);
+        orderRepository.save(order);
+
+        eventPublisher.publishEvent(OrderChangedEvent.of(order.getId()));
+        if (stockStrategy != StockStrategy.LEDGER) {
+            eventPublisher.publishEvent(new ItemChangedEvent(items.keySet()));
+        }
+
+        return order.getId();
+    }
+
+    /**
+     * 대량 주문, 요청 전체가 트랜잭션 하나(하나라도 실패하면 모두 롤백)
+     * - 재고는 상품별 총 수량으로 상품마다 한번만 차감, 모자란 상품이 있으면 insert 전에 실패
+     * - 주문/배송/주문상품 insert는 hibernate.jdbc.batch_size 단위로 묶여서 나감(order_inserts로 테이블별 정렬)
+     * - flush-every건마다 flush + clear, 영속성 컨텍스트가 커지지 않게
+     */
+    @Transactional
+    public BulkOrderResult placeBulk(List<OrderRequest> requests) {
+        long started = System.nanoTime();
+
+        //상품 id 순으로 재고를 바꿔서 다른 대량 주문과 락 순서가 엇갈리지 않게
+        Map<Long, Integer> demand = new TreeMap<>();
+        int lineCount = 0;
+        for (OrderRequest request : requests) {
+            for (OrderLine line : request.getLines()) {
+                demand.merge(line.getItemId(), line.getCount(), Integer::sum);
+                lineCount++;
+            }
+        }
+        reserveStock(demand);
+        orderRepository.flushAndClear();
+
+        List<Long> orderIds = new ArrayList<>(requests.size());
+        for (int from = 0; from < requests.size(); from += bulkFlushEvery) {
+            List<OrderRequest> chunk = requests.subList(from, Math.min(from + bulkFlushEvery, requests.size()));
+
+            //clear로 준영속이 되었으므로 이번 묶음에서 쓸 회원, 상품을 IN 쿼리로 다시 조회
+            Map<Long, Member> members = memberRepository.findAllById(memberIdsOf(chunk)).stream()
+                    .collect(Collectors.toMap(Member::getId, Function.identity()));
+            Map<Long, Item> items = findItems(chunk.stream()
+                    .flatMap(request -> request.getLines().stream())
+                    .map(OrderLine::getItemId)
+                    .collect(Collectors.toSet()));
+
+            for (OrderRequest request : chunk) {
+                Member member = members.get(request.getMemberId());
+                if (member == null) {
+                    throw new EntityNotFoundException("회원이 없습니다: " + request.getMemberId());
+                }
+                OrderItem[] orderItems = request.getLines().stream()
+                        .map(line -> {
+                            Item item = items.get(line.getItemId());
+                            return OrderItem.createReservedOrderItem(item, item.getPrice(), line.getCount());
+                        })
+                        .toArray(OrderItem[]::new);
+
+                Order order = Order.createOrder(member, createDelivery(member), orderItems);
+                orderRepository.save(order);
+                orderIds.add(order.getId());
+            }
+            orderRepository.flushAndClear();
+        }
+
+        eventPublisher.publishEvent(new OrderChangedEvent(orderIds));
+        if (stockStrategy != StockStrategy.LEDGER) {
+            eventPublisher.publishEvent(new ItemChangedEvent(demand.keySet()));
+        }
+
+        return new BulkOrderResult(orderIds, lineCount, System.nanoTime() - started);
+    }
+
+    //상품별 총 수량만큼 재고 차감
+    private void reserveStock(Map<Long, Integer> demand) {
+        Map<Long, Item> items = findItems(demand.keySet());
+        demand.forEach((itemId, count) -> {
+            switch (stockStrategy) {
+                case LEDGER:
+                    stockLedger.reserve(itemId, count);
+                    break;
+                case CONDITIONAL_UPDATE:
+                    if (itemRepository.decreaseStock(itemId, count) == 0) {
+                        throw new NotEnoughStockException("need more stock");
+                    }
+                    break;
+                default:
+                    items.get(itemId).removeStock(count);
+            }
+        });
+    }
+
+    //IN 쿼리를 inChunkSize개씩, 없는 상품이 있으면 예외
+    private Map<Long, Item> findItems(Collection<Long> itemIds) {
+        List<Long> ids = new ArrayList<>(itemIds);
+        Map<Long, Item> items = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += inChunkSize) {
+            for (Item item : itemRepository.findAllByIds(ids.subList(from, Math.min(from + inChunkSize, ids.size())))) {
+                items.put(item.getId(), item);
+            }
+        }
+        for (Long itemId : ids) {
+            if (!items.containsKey(itemId)) {
+                throw new EntityNotFoundException("상품이 없습니다: " + itemId);
+            }
+        }
+        return items;
+    }
+
+    private static Set<Long> itemIdsOf(List<OrderLine> lines) {
+        return lines.stream().map(OrderLine::getItemId).collect(Collectors.toSet());
+    }
+
+    private static Set<Long> memberIdsOf(List<OrderRequest> requests) {
+        return requests.stream().map(OrderRequest::getMemberId).collect(Collectors.toSet());
+    }
+
+    private static Delivery createDelivery(Member member) {
+        Delivery delivery = new Delivery();
+        delivery.setAddress(member.getAddress());
+        delivery.setStatus(DeliveryStatus.READY);
+        return delivery;
+    }
+
+    private OrderItem createOrderItem(Item item, int count) {
+        if (stockStrategy == StockStrategy.LEDGER) {
+            stockLedger.reserve(item.getId(), count);
+            return OrderItem.createReservedOrderItem(item, item.getPrice(), count);
+        }
+        if (stockStrategy == StockStrategy.CONDITIONAL_UPDATE) {
+            if (itemRepository.decreaseStock(item.getId(), count) == 0) {
+                throw new NotEnoughStockException("need more stock");
+            }
+            return OrderItem.createReservedOrderItem(item, item.getPrice(), count);
+        }
+        //엔티티 재고 변경, 커밋시 version 비교로 동시 수정 감지
+        return OrderItem.createOrderItem(item, item.getPrice(), count);
+    }
+
     /**
      * 주문 취소
      */
@@ -52,14 +234,85 @@ public class OrderService {
     public void cancelOrder(Long orderId) {
         //주문 엔티티 조회
         Order order = orderRepository.findOne(orderId);
+        eventPublisher.publishEvent(OrderChangedEvent.of(orderId));
+
+        if (stockStrategy == StockStrategy.LEDGER) {
+            //주문 취소, 재고는 장부로 돌려줌(커밋되면 반영)
+            order.markCanceled();
+            for (OrderItem orderItem : order.getOrderItems()) {
+                stockLedger.release(orderItem.getItem().getId(), orderItem.getCount());
+            }
+            return;
+        }
+
         //주문 취소
         order.cancel();
+        //재고가 돌아온 상품들
+        eventPublisher.publishEvent(new ItemChangedEvent(order.getOrderItems().stream()
+                .map(orderItem -> orderItem.getItem().getId())
+                .collect(Collectors.toSet())));
+    }
+
+    /**
+     * 대량 취소, 주문 수와 관계없이 쿼리 수가 고정
+     * - 주문 행 락 1번, 배송 상태 확인 1번
+     * - 취소할 주문 update 1번, 상품별 수량 합계 1번, 재고 복구 update 1번(LEDGER면 장부에 반납)
+     * 주문 엔티티를 고치지 않으므로 건별 cancelOrder와 달리 dirty checking, 주문상품/상품 로딩이 없음
+     * IN 절 크기는 호출하는 쪽(OrderCancelJob)이 나눠서 넘김
+     */
+    @Transactional
+    public List<OrderCancelResult> cancelOrders(Collection<Long> orderIds) {
+        Map<Long, Order> orders = orderRepository.findAllForUpdate(orderIds).stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
+        //delivery는 프록시, id만 꺼내므로 초기화되지 않음
+        Map<Long, DeliveryStatus> deliveryStatuses = orders.isEmpty() ? Collections.emptyMap()
+                : orderRepository.findDeliveryStatuses(orders.values().stream()
+                .map(order -> order.getDelivery().getId())
+                .collect(Collectors.toSet()));
+
+        List<OrderCancelResult> results = new ArrayList<>(orderIds.size());
+        List<Long> cancelIds = new ArrayList<>();
+        for (Long orderId : orderIds) {
+            OrderCancelResult.Status status = cancelStatusOf(orders.get(orderId), deliveryStatuses);
+            if (status == OrderCancelResult.Status.CANCELED) {
+                cancelIds.add(orderId);
+            }
+            results.add(new OrderCancelResult(orderId, status));
+        }
+        if (cancelIds.isEmpty()) {
+            return results;
+        }
+
+        orderRepository.cancelAll(cancelIds);
+        Map<Long, Integer> restored = orderRepository.sumCountsByItem(cancelIds);
+        if (stockStrategy == StockStrategy.LEDGER) {
+            restored.forEach(stockLedger::release);
+        } else {
+            //item 2차 캐시 리전은 비워지고, 상품 목록 스냅샷은 ItemChangedEvent로 다시 읽음
+            itemRepository.restoreStockOfOrders(cancelIds);
+            eventPublisher.publishEvent(new ItemChangedEvent(restored.keySet()));
+        }
+        eventPublisher.publishEvent(new OrderChangedEvent(cancelIds));
+        return results;
+    }
+
+    private static OrderCancelResult.Status cancelStatusOf(Order order, Map<Long, DeliveryStatus> deliveryStatuses) {
+        if (order == null) {
+            return OrderCancelResult.Status.NOT_FOUND;
+        }
+        if (order.getStatus() == OrderStatus.CANCEL) {
+            return OrderCancelResult.Status.ALREADY_CANCELED;
+        }
+        if (deliveryStatuses.get(order.getDelivery().getId()) == DeliveryStatus.COMP) {
+            return OrderCancelResult.Status.ALREADY_DELIVERED;
+        }
+        return OrderCancelResult.Status.CANCELED;
     }
 
-    //검색
-    public List<Order> findOrders(OrderSearch orderSearch) {
+    //검색, 최신 주문부터 orderSearch.limit개씩
+    public CursorPage<Order> findOrders(OrderSearch orderSearch) {
 
-        return orderRepository.findAllByString(orderSearch);
+        return orderRepository.search(orderSearch);
     }
 }
 
@@ -0,0 +1,244 @@
+package jpabook.jpashop.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jpabook.jpashop.domain.StockReservation;
+import jpabook.jpashop.event.ItemChangedEvent;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import jpabook.jpashop.repository.ItemRepository;
+import jpabook.jpashop.repository.StockReservationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityNotFoundException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 인기 상품 재고 예약 장부 (jpashop.order.stock-strategy=LEDGER)
+ * - 예약/반환: 메모리의 StripedStock에서 바로 판단하고 stock_reservation에 insert, item 행은 락을 잡지 않음
+ *   트랜잭션이 롤백되면 afterCompletion에서 메모리 재고를 되돌림
+ * - 반영: flush-interval-ms마다 예약을 상품별로 합쳐서 item.stock_quantity에 update 한번씩, 반영한 예약은 삭제
+ * - 재시작: 상품을 처음 예약할때 DB에서 (재고 - 반영 안된 예약)으로 다시 읽음
+ * - 상품 수정 등 다른 경로로 재고가 바뀌면(ItemChangedEvent) 진행중 예약이 끝나길 기다렸다가 DB 값으로 다시 맞춤
+ *   기다리는건 재맞춤 스레드(CoalescingRefresher)에서, 커밋한 요청 스레드는 상품 id만 넘기고 바로 돌아감
+ * 여러 서버가 같은 DB를 쓰면 서버마다 재고를 따로 들고 있으므로 단일 서버 전제
+ */
+@Slf4j
+@Component
+public class StockLedger {
+
+    private final ItemRepository itemRepository;
+    private final StockReservationRepository reservationRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readTemplate;
+    private final Map<Long, StripedStock> stocks = new ConcurrentHashMap<>();
+    private final Set<Long> resyncPending = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean dirty = new AtomicBoolean(true); //재시작 전 예약이 남아있을 수 있으므로 처음엔 true
+    private final Timer flushTimer;
+    private final Counter flushedReservations;
+    private final CoalescingRefresher resyncer;
+
+    @Value("${jpashop.stock-ledger.stripes:8}")
+    private int stripes;
+
+    @Value("${jpashop.stock-ledger.flush-batch-size:1000}")
+    private int flushBatchSize;
+
+    @Value("${jpashop.stock-ledger.resync-timeout-ms:2000}")
+    private long resyncTimeoutMs;
+
+    public StockLedger(ItemRepository itemRepository, StockReservationRepository reservationRepository,
+                       ApplicationEventPublisher eventPublisher, PlatformTransactionManager transactionManager,
+                       MeterRegistry meterRegistry) {
+        this.itemRepository = itemRepository;
+        this.reservationRepository = reservationRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readTemplate = new TransactionTemplate(transactionManager);
+        //읽기만 하지만 readOnly로 두지 않음, replica 라우팅(ReplicaRoutingDataSource)에서도 복제 지연 없이 primary에서 읽게
+        this.readTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.flushTimer = meterRegistry.timer("stock.ledger.flush");
+        this.flushedReservations = meterRegistry.counter("stock.ledger.flushed.reservations");
+        Gauge.builder("stock.ledger.items", stocks, Map::size).register(meterRegistry);
+        this.resyncer = new CoalescingRefresher("stock-ledger-resync", this::resync);
+    }
+
+    /**
+     * 재고 예약, 현재 트랜잭션이 롤백되면 되돌림
+     * 트랜잭션 밖에서 부르면 되돌릴 시점이 없으므로 메모리 재고를 건드리기 전에 거절
+     */
+    public void reserve(Long itemId, int count) {
+        requireTransaction();
+        StripedStock stock = stockOf(itemId);
+        int stripe = stock.enter();
+        if (!stock.tryTake(stripe, count)) {
+            stock.exit(stripe);
+            throw new NotEnoughStockException("need more stock");
+        }
+        afterCompletion(stock, stripe, count, false);
+        reservationRepository.save(new StockReservation(itemId, count));
+    }
+
+    /**
+     * 주문 취소 등으로 재고 반환, 현재 트랜잭션이 커밋되어야 메모리 재고에 더함
+     */
+    public void release(Long itemId, int count) {
+        requireTransaction();
+        StripedStock stock = stockOf(itemId);
+        int stripe = stock.enter();
+        afterCompletion(stock, stripe, count, true);
+        reservationRepository.save(new StockReservation(itemId, -count));
+    }
+
+    public OptionalInt available(Long itemId) {
+        StripedStock stock = stocks.get(itemId);
+        return stock == null ? OptionalInt.empty() : OptionalInt.of(stock.total());
+    }
+
+    /**
+     * 쌓인 예약을 item 테이블에 반영, 배치 하나가 트랜잭션 하나
+     * 같은 예약을 두번 반영하지 않도록 flush끼리는 synchronized
+     */
+    @Scheduled(initialDelayString = "${jpashop.stock-ledger.flush-interval-ms:200}",
+            fixedDelayString = "${jpashop.stock-ledger.flush-interval-ms:200}")
+    public synchronized void flush() {
+        if (!resyncPending.isEmpty()) {
+            List<Long> itemIds = new ArrayList<>(resyncPending);
+            resyncPending.removeAll(itemIds);
+            resyncer.add(itemIds);
+        }
+        if (!dirty.getAndSet(false)) {
+            return;
+        }
+        flushTimer.record(() -> {
+            Integer flushed;
+            do {
+                flushed = transactionTemplate.execute(status -> flushBatch());
+            } while (flushed != null && flushed == flushBatchSize);
+        });
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        resyncer.shutdown();
+        flush();
+    }
+
+    /**
+     * 예약 외의 경로로 재고가 바뀐 상품은 DB 값으로 다시 맞춤, 장부가 반영한 변경(stockFlush)은 무시
+     * 진행중 예약을 최대 resync-timeout-ms까지 기다리므로 재맞춤 스레드에 넘기기만 함
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onItemChanged(ItemChangedEvent event) {
+        if (!event.isStockFlush()) {
+            resyncer.add(event.getItemIds());
+        }
+    }
+
+    private int flushBatch() {
+        List<StockReservation> reservations = reservationRepository.findOldest(flushBatchSize);
+        if (reservations.isEmpty()) {
+            return 0;
+        }
+        //상품 id 순으로 update해서 다른 트랜잭션과 락 순서가 엇갈리지 않게
+        Map<Long, Integer> deltas = new TreeMap<>();
+        List<Long> reservationIds = new ArrayList<>(reservations.size());
+        for (StockReservation reservation : reservations) {
+            deltas.merge(reservation.getItemId(), reservation.getQuantity(), Integer::sum);
+            reservationIds.add(reservation.getId());
+        }
+        deltas.forEach((itemId, reserved) -> {
+            if (reserved != 0) {
+                itemRepository.addStock(itemId, -reserved);
+            }
+        });
+        reservationRepository.deleteByIds(reservationIds);
+        flushedReservations.increment(reservations.size());
+
+        //상품 스냅샷 등은 커밋 후에 바뀐 재고를 반영
+        eventPublisher.publishEvent(ItemChangedEvent.stockFlushed(deltas.keySet()));
+        return reservations.size();
+    }
+
+    private void resync(Collection<Long> itemIds) {
+        for (Long itemId : itemIds) {
+            StripedStock stock = stocks.get(itemId);
+            if (stock == null) {
+                continue; //아직 안읽은 상품은 처음 예약할때 읽음
+            }
+            stock.freeze();
+            try {
+                if (!stock.awaitQuiescent(TimeUnit.MILLISECONDS.toNanos(resyncTimeoutMs))) {
+                    log.warn("stock ledger resync timed out, itemId={}", itemId);
+                    resyncPending.add(itemId); //다음 flush때 다시
+                    continue;
+                }
+                Integer available = readTemplate.execute(status -> reservationRepository.findAvailableStock(itemId));
+                if (available == null) {
+                    stocks.remove(itemId);
+                } else {
+                    stock.reset(Math.max(available, 0));
+                }
+            } finally {
+                stock.unfreeze();
+            }
+        }
+    }
+
+    private StripedStock stockOf(Long itemId) {
+        StripedStock stock = stocks.get(itemId);
+        if (stock != null) {
+            return stock;
+        }
+        //아직 이 상품으로 예약한 적이 없으므로 진행중인 예약도 없음, 여러 스레드가 읽어도 값이 같음
+        Integer available = reservationRepository.findAvailableStock(itemId);
+        if (available == null) {
+            throw new EntityNotFoundException("상품이 없습니다: " + itemId);
+        }
+        StripedStock loaded = new StripedStock(stripes, Math.max(available, 0));
+        StripedStock existing = stocks.putIfAbsent(itemId, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    private static void requireTransaction() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("재고 예약은 트랜잭션 안에서만 할 수 있습니다.");
+        }
+    }
+
+    //requireTransaction()을 통과한 뒤에만 호출
+    private void afterCompletion(StripedStock stock, int stripe, int count, boolean release) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                boolean committed = status == STATUS_COMMITTED;
+                //예약은 롤백되면 되돌리고, 반환은 커밋되어야 더함
+                if (release == committed) {
+                    stock.add(stripe, count);
+                }
+                if (committed) {
+                    dirty.set(true);
+                }
+                stock.exit(stripe);
+            }
+        });
+    }
+}
@@ -0,0 +1,25 @@
+package jpabook.jpashop.service;
+
+/**
+ * 주문시 재고 차감 방식 (jpashop.order.stock-strategy)
+ */
+public enum StockStrategy {
+
+    /**
+     * 상품 엔티티를 읽고 removeStock, 커밋할때 @Version으로 충돌 감지
+     * 충돌하면 OptimisticLockOrderFacade가 다시 시도
+     */
+    OPTIMISTIC,
+
+    /**
+     * update item set stock_quantity = stock_quantity - ? where item_id = ? and stock_quantity >= ?
+     * 재고를 메모리에서 계산하지 않으므로 충돌/재시도가 없음, 대신 행 락을 커밋까지 잡음
+     */
+    CONDITIONAL_UPDATE,
+
+    /**
+     * 메모리 장부(StockLedger)에서 예약하고 stock_reservation에 기록, item 행은 주기적으로 한번에 반영
+     * 주문이 몰리는 상품도 item 행 락을 다투지 않음
+     */
+    LEDGER
+}
@@ -0,0 +1,139 @@
+package jpabook.jpashop.service;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 상품 하나의 재고를 여러 칸(stripe)에 나눠 담은 카운터
+ * 스레드마다 자기 칸에서 CAS로 빼므로 주문이 몰려도 한 메모리 위치를 두고 다투지 않음
+ * 자기 칸이 모자라면 락을 잡고 모든 칸을 모아서 정확히 판단(재고가 거의 다 떨어졌을때만)
+ *
+ * 진행중(inflight) 카운트: 예약/반환 후 트랜잭션이 끝나기 전까지 +1
+ * DB와 다시 맞출때(reset)는 freeze로 새 진입을 막고 진행중이 0이 될때까지 기다린 뒤 DB를 읽음
+ */
+public final class StripedStock {
+
+    private static final int PAD = 16; //int 16개 = 64바이트, 칸마다 캐시 라인을 따로 씀
+
+    private final int stripes;
+    private final AtomicIntegerArray available;
+    private final AtomicIntegerArray inflight;
+    private volatile boolean frozen;
+
+    public StripedStock(int stripes, int initial) {
+        if (stripes <= 0 || Integer.bitCount(stripes) != 1) {
+            throw new IllegalArgumentException("stripes는 2의 제곱수여야 합니다: " + stripes);
+        }
+        this.stripes = stripes;
+        this.available = new AtomicIntegerArray(stripes * PAD);
+        this.inflight = new AtomicIntegerArray(stripes * PAD);
+        spread(initial);
+    }
+
+    /**
+     * 진행중 +1, 맞추는 중(frozen)이면 끝날때까지 기다림
+     * 반환값(칸 번호)은 exit, tryTake, add에 그대로 넘김
+     */
+    public int enter() {
+        int home = (int) Thread.currentThread().getId() & (stripes - 1);
+        for (;;) {
+            inflight.incrementAndGet(home * PAD);
+            if (!frozen) {
+                return home;
+            }
+            inflight.decrementAndGet(home * PAD);
+            while (frozen) {
+                LockSupport.parkNanos(100_000);
+            }
+        }
+    }
+
+    public void exit(int stripe) {
+        inflight.decrementAndGet(stripe * PAD);
+    }
+
+    /**
+     * count만큼 빼기, 전체 재고가 모자라면 false
+     */
+    public boolean tryTake(int stripe, int count) {
+        int index = stripe * PAD;
+        for (;;) {
+            int current = available.get(index);
+            if (current < count) {
+                return takeSlow(count);
+            }
+            if (available.compareAndSet(index, current, current - count)) {
+                return true;
+            }
+        }
+    }
+
+    public void add(int stripe, int count) {
+        available.addAndGet(stripe * PAD, count);
+    }
+
+    public int total() {
+        int total = 0;
+        for (int i = 0; i < stripes; i++) {
+            total += available.get(i * PAD);
+        }
+        return total;
+    }
+
+    public void freeze() {
+        frozen = true;
+    }
+
+    public void unfreeze() {
+        frozen = false;
+    }
+
+    /**
+     * freeze 후 진행중인 예약/반환이 모두 끝날때까지 대기, 시간 안에 안끝나면 false
+     */
+    public boolean awaitQuiescent(long timeoutNanos) {
+        long deadline = System.nanoTime() + timeoutNanos;
+        while (inflightCount() > 0) {
+            if (System.nanoTime() - deadline > 0) {
+                return false;
+            }
+            LockSupport.parkNanos(100_000);
+        }
+        return true;
+    }
+
+    //전체를 total로 다시 설정, freeze + awaitQuiescent 이후에만
+    public synchronized void reset(int total) {
+        for (int i = 0; i < stripes; i++) {
+            available.set(i * PAD, 0);
+        }
+        spread(total);
+    }
+
+    private int inflightCount() {
+        int count = 0;
+        for (int i = 0; i < stripes; i++) {
+            count += inflight.get(i * PAD);
+        }
+        return count;
+    }
+
+    //다른 느린 경로와는 락으로 순서를 맞추고, 빠른 경로(CAS)는 비워진 칸을 보고 여기로 들어옴
+    private synchronized boolean takeSlow(int count) {
+        int total = 0;
+        for (int i = 0; i < stripes; i++) {
+            total += available.getAndSet(i * PAD, 0);
+        }
+        boolean taken = total >= count;
+        spread(taken ? total - count : total);
+        return taken;
+    }
+
+    private void spread(int total) {
+        int each = total / stripes;
+        int rest = total % stripes;
+        for (int i = 0; i < stripes; i++) {
+            available.addAndGet(i * PAD, each + (i < rest ? 1 : 0));
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package jpabook.jpashop;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Album;
+import jpabook.jpashop.domain.item.Book;
+
+import java.util.UUID;
+
+/**
+ * 테스트용 회원, 상품 엔티티(저장 전)
+ * 저장은 테스트마다 다름, 커밋이 필요한 테스트는 memberService.join / itemService.saveItem, @Transactional 테스트는 em.persist
+ */
+public final class TestFixtures {
+
+    private TestFixtures() {
+    }
+
+    public static Member member(String name) {
+        Member member = new Member();
+        member.setName(name);
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        return member;
+    }
+
+    //커밋하는 테스트끼리 이름 중복 검사(MemberService.join)에 걸리지 않게
+    public static Member uniqueMember(String prefix) {
+        return member(prefix + "-" + UUID.randomUUID());
+    }
+
+    public static Book book(String name, int price, int stockQuantity) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(price);
+        book.setStockQuantity(stockQuantity);
+        return book;
+    }
+
+    public static Album album(String name, int price, int stockQuantity) {
+        Album album = new Album();
+        album.setName(name);
+        album.setPrice(price);
+        album.setStockQuantity(stockQuantity);
+        return album;
+    }
+}
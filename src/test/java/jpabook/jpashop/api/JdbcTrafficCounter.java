@@ -0,0 +1,116 @@
+package jpabook.jpashop.api;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * DataSource를 감싸서 실제로 DB에 보낸 SQL 수와 읽어온 row 수를 셈
+ * 하이버네이트 통계는 엔티티/쿼리 단위라 배치 페치, 2차 캐시가 섞이면 JDBC에서 읽은 row 수와 달라서 드라이버 바로 앞에서 셈
+ * - 문장: execute, executeQuery, executeUpdate, executeBatch 호출 수(배치는 묶음 하나가 1)
+ * - row: ResultSet.next()가 true를 돌려준 수
+ * 전역 카운터이므로 엔드포인트를 하나씩 측정할때 전후 차이로 씀
+ * BeanPostProcessor로 등록하면 컨텍스트의 DataSource 빈을 감쌈(unwrap, isWrapperFor는 원래 풀로 넘어가서 풀 지표는 그대로)
+ */
+class JdbcTrafficCounter implements BeanPostProcessor {
+
+    private final AtomicLong statements = new AtomicLong();
+    private final AtomicLong rows = new AtomicLong();
+
+    long getStatements() {
+        return statements.get();
+    }
+
+    long getRows() {
+        return rows.get();
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource) {
+            return wrap((DataSource) bean);
+        }
+        return bean;
+    }
+
+    DataSource wrap(DataSource dataSource) {
+        return proxy(DataSource.class, dataSource, (target, method, args) -> {
+            Object result = invoke(target, method, args);
+            if (result instanceof Connection) {
+                return proxy(Connection.class, (Connection) result, this::onConnection);
+            }
+            return result;
+        });
+    }
+
+    private Object onConnection(Object target, Method method, Object[] args) throws Throwable {
+        Object result = invoke(target, method, args);
+        if (result instanceof CallableStatement) {
+            return proxy(CallableStatement.class, (CallableStatement) result, this::onStatement);
+        }
+        if (result instanceof PreparedStatement) {
+            return proxy(PreparedStatement.class, (PreparedStatement) result, this::onStatement);
+        }
+        if (result instanceof Statement) {
+            return proxy(Statement.class, (Statement) result, this::onStatement);
+        }
+        return result;
+    }
+
+    private Object onStatement(Object target, Method method, Object[] args) throws Throwable {
+        if (method.getName().startsWith("execute")) {
+            statements.incrementAndGet();
+        }
+        Object result = invoke(target, method, args);
+        if (result instanceof ResultSet) {
+            return proxy(ResultSet.class, (ResultSet) result, this::onResultSet);
+        }
+        return result;
+    }
+
+    private Object onResultSet(Object target, Method method, Object[] args) throws Throwable {
+        Object result = invoke(target, method, args);
+        if ("next".equals(method.getName()) && Boolean.TRUE.equals(result)) {
+            rows.incrementAndGet();
+        }
+        return result;
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    //equals, hashCode는 프록시 자신 기준, 스프링이 커넥션을 == 로 비교하는 곳이 있음
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, Handler handler) {
+        InvocationHandler invocationHandler = (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return handler.handle(target, method, args);
+            }
+        };
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, invocationHandler);
+    }
+
+    private interface Handler {
+        Object handle(Object target, Method method, Object[] args) throws Throwable;
+    }
+}
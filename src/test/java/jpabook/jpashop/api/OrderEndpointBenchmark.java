@@ -0,0 +1,289 @@
+package jpabook.jpashop.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.OptimisticLockOrderFacade;
+import jpabook.jpashop.service.OrderLine;
+import jpabook.jpashop.service.OrderRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * 주문 조회 엔드포인트(v1~v6, simple v1~v4) 부하 측정
+ * 같은 데이터에 엔드포인트를 하나씩 concurrency개 스레드로 requests번 호출하고
+ * 지연시간 p50/p95/p99, 처리량, 요청당 SQL 문장 수와 읽은 row 수(JdbcTrafficCounter)를 JSON 리포트로 남김
+ * 커밋끼리 리포트를 비교할 수 있게 설정(bench.*)과 커밋 id도 같이 기록
+ *
+ * 오래 걸리므로 test 태스크에서는 빠지고 ./gradlew endpointBenchmark 로만 실행
+ * 예) ./gradlew endpointBenchmark -Pbench.orders=5000 -Pbench.concurrency=16 -Pbench.endpoints=/api/v5/orders,/api/v6/orders
+ */
+@Slf4j
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("bench")
+public class OrderEndpointBenchmark {
+
+    //전체를 다 읽는 엔드포인트(v1~v3, simple v1~v3)는 주문 수만큼, 페이징 엔드포인트는 한 페이지(limit)만큼 읽음
+    private static final List<String> ENDPOINTS = Arrays.asList(
+            "/api/v1/orders",
+            "/api/v2/orders",
+            "/api/v3/orders",
+            "/api/v3.1/orders?offset=0&limit=100",
+            "/api/v3.2/orders?limit=100",
+            "/api/v4/orders?limit=100",
+            "/api/v5/orders?limit=100",
+            "/api/v5.1/orders?limit=100",
+            "/api/v6/orders?limit=100",
+            "/api/v1/simple-orders",
+            "/api/v2/simple-orders",
+            "/api/v3/simple-orders",
+            "/api/v3.1/simple-orders?limit=100",
+            "/api/v4/simple-orders?limit=100");
+
+    private static final int SEED_BATCH = 500;
+    private static final int MAX_COUNT = 3; //주문상품 하나의 최대 수량
+
+    @Value("${bench.members:100}") int members;
+    @Value("${bench.items:50}") int items;
+    @Value("${bench.orders:1000}") int orders;
+    @Value("${bench.max-lines-per-order:3}") int maxLinesPerOrder;
+    @Value("${bench.seed:42}") long seed;
+    @Value("${bench.concurrency:8}") int concurrency;
+    @Value("${bench.warmup:20}") int warmup;
+    @Value("${bench.requests:200}") int requests;
+    @Value("${bench.endpoints:}") String endpoints; //쉼표로 구분, 비어 있으면 전부(쿼리스트링 없이 경로만 적어도 됨)
+    @Value("${bench.report-dir:build/reports/endpoint-bench}") String reportDir;
+    @Value("${bench.commit:}") String commit;
+
+    @Autowired TestRestTemplate restTemplate;
+    @Autowired JdbcTrafficCounter jdbcTraffic;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+    @Autowired OptimisticLockOrderFacade orderFacade;
+
+    @TestConfiguration
+    static class JdbcTrafficConfig {
+
+        //BeanPostProcessor라 static, 다른 빈보다 먼저 만들어져야 DataSource를 감쌀 수 있음
+        @Bean
+        static JdbcTrafficCounter jdbcTrafficCounter() {
+            return new JdbcTrafficCounter();
+        }
+    }
+
+    @Test
+    public void 주문조회_엔드포인트_비교() throws Exception {
+        //given
+        seed();
+
+        //when
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (String endpoint : selectedEndpoints()) {
+            Map<String, Object> result = measure(endpoint);
+            results.add(result);
+            log.info("{} p50={}ms p95={}ms p99={}ms rps={} sql/req={} rows/req={}", endpoint,
+                    result.get("p50Ms"), result.get("p95Ms"), result.get("p99Ms"), result.get("throughputPerSecond"),
+                    result.get("statementsPerRequest"), result.get("rowsPerRequest"));
+        }
+
+        //then
+        File report = writeReport(results);
+        log.info("endpoint benchmark report: {}", report.getAbsolutePath());
+        for (Map<String, Object> result : results) {
+            assertEquals(result.get("endpoint") + " 실패 응답이 없어야 한다.", 0, result.get("errors"));
+        }
+    }
+
+    /**
+     * seed가 같으면 회원, 상품, 주문 구성이 매번 같음
+     * 주문은 SEED_BATCH건씩 대량 주문(placeBulk)으로 넣음
+     */
+    private void seed() {
+        Random random = new Random(seed);
+
+        List<Long> memberIds = new ArrayList<>(members);
+        for (int i = 0; i < members; i++) {
+            Member member = new Member();
+            member.setName("bench-member-" + i);
+            member.setAddress(new Address("서울", "강가-" + i, "123-123"));
+            memberIds.add(memberService.join(member));
+        }
+
+        List<Long> itemIds = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            Book book = new Book();
+            book.setName("bench-book-" + i);
+            book.setPrice(10000 + random.nextInt(20) * 1000);
+            book.setStockQuantity(orders * MAX_COUNT); //한 주문에 같은 상품은 한번만 들어가므로 모자라지 않음
+            itemService.saveItem(book);
+            itemIds.add(book.getId());
+        }
+
+        List<OrderRequest> batch = new ArrayList<>(SEED_BATCH);
+        for (int i = 0; i < orders; i++) {
+            List<Long> shuffled = new ArrayList<>(itemIds);
+            Collections.shuffle(shuffled, random);
+            int lineCount = 1 + random.nextInt(Math.min(maxLinesPerOrder, itemIds.size()));
+            List<OrderLine> lines = shuffled.subList(0, lineCount).stream()
+                    .map(itemId -> new OrderLine(itemId, 1 + random.nextInt(MAX_COUNT)))
+                    .collect(Collectors.toList());
+            batch.add(new OrderRequest(memberIds.get(random.nextInt(memberIds.size())), lines));
+
+            if (batch.size() == SEED_BATCH || i == orders - 1) {
+                orderFacade.placeBulk(batch);
+                batch = new ArrayList<>(SEED_BATCH);
+            }
+        }
+    }
+
+    private List<String> selectedEndpoints() {
+        if (endpoints.isEmpty()) {
+            return ENDPOINTS;
+        }
+        List<String> selected = new ArrayList<>();
+        for (String wanted : endpoints.split(",")) {
+            String path = wanted.trim();
+            ENDPOINTS.stream()
+                    .filter(e -> e.equals(path) || e.startsWith(path + "?"))
+                    .findFirst()
+                    .ifPresent(selected::add);
+        }
+        return selected;
+    }
+
+    /**
+     * warmup번은 버리고(JIT, 커넥션 풀, 캐시 채우기) requests번을 concurrency개 스레드가 나눠서 호출
+     * 문장 수, row 수는 측정 구간 전후 차이를 요청 수로 나눈 값
+     */
+    private Map<String, Object> measure(String endpoint) throws Exception {
+        for (int i = 0; i < warmup; i++) {
+            restTemplate.getForEntity(endpoint, byte[].class);
+        }
+
+        long[] latencies = new long[requests];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        AtomicLong bytes = new AtomicLong();
+        long statementsBefore = jdbcTraffic.getStatements();
+        long rowsBefore = jdbcTraffic.getRows();
+
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        long started = System.nanoTime();
+        try {
+            List<Future<?>> futures = new ArrayList<>(concurrency);
+            for (int c = 0; c < concurrency; c++) {
+                futures.add(clients.submit(() -> {
+                    int i;
+                    while ((i = next.getAndIncrement()) < requests) {
+                        long sent = System.nanoTime();
+                        ResponseEntity<byte[]> response = restTemplate.getForEntity(endpoint, byte[].class);
+                        latencies[i] = System.nanoTime() - sent;
+                        if (!response.getStatusCode().is2xxSuccessful()) {
+                            errors.incrementAndGet();
+                        }
+                        if (response.getBody() != null) {
+                            bytes.addAndGet(response.getBody().length);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            clients.shutdown();
+        }
+        long elapsed = System.nanoTime() - started;
+
+        Arrays.sort(latencies);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("endpoint", endpoint);
+        result.put("requests", requests);
+        result.put("errors", errors.get());
+        result.put("p50Ms", millis(percentile(latencies, 0.50)));
+        result.put("p95Ms", millis(percentile(latencies, 0.95)));
+        result.put("p99Ms", millis(percentile(latencies, 0.99)));
+        result.put("maxMs", millis(latencies[latencies.length - 1]));
+        result.put("throughputPerSecond", round(requests * 1_000_000_000.0 / elapsed));
+        result.put("statementsPerRequest", round((double) (jdbcTraffic.getStatements() - statementsBefore) / requests));
+        result.put("rowsPerRequest", round((double) (jdbcTraffic.getRows() - rowsBefore) / requests));
+        result.put("bytesPerRequest", bytes.get() / requests);
+        return result;
+    }
+
+    private File writeReport(List<Map<String, Object>> results) throws Exception {
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("members", members);
+        config.put("items", items);
+        config.put("orders", orders);
+        config.put("maxLinesPerOrder", maxLinesPerOrder);
+        config.put("seed", seed);
+        config.put("concurrency", concurrency);
+        config.put("warmup", warmup);
+        config.put("requests", requests);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("commit", commit);
+        report.put("createdAt", LocalDateTime.now().toString());
+        report.put("javaVersion", System.getProperty("java.version"));
+        report.put("config", config);
+        report.put("results", results);
+
+        File dir = new File(reportDir);
+        dir.mkdirs();
+        String name = "endpoint-bench-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json";
+        File file = new File(dir, name);
+        new ObjectMapper()
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(file, report);
+        return file;
+    }
+
+    //nearest-rank
+    private static long percentile(long[] sorted, double p) {
+        int rank = (int) Math.ceil(p * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private static double millis(long nanos) {
+        return round(nanos / 1_000_000.0);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
@@ -0,0 +1,114 @@
+package jpabook.jpashop.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.*;
+
+/**
+ * 내장 H2 두개를 primary, replica로 두고 어느 쪽에서 읽었는지 marker 테이블 값으로 확인
+ */
+public class ReplicaRoutingDataSourceTest {
+
+    private static final long WINDOW_MS = 300;
+
+    private HikariDataSource replicaPool;
+    private ReplicaRoutingDataSource routing;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readTx;
+    private TransactionTemplate writeTx;
+
+    @Before
+    public void setUp() {
+        HikariDataSource primaryPool = h2("primary");
+        replicaPool = h2("replica");
+        routing = new ReplicaRoutingDataSource(primaryPool, List.of(replicaPool),
+                ReplicaRoutingDataSource.Balance.ROUND_ROBIN, new ReadYourWrites(Duration.ofMillis(WINDOW_MS)),
+                new SimpleMeterRegistry(), Duration.ofMinutes(1), Duration.ofSeconds(1));
+
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        readTx = new TransactionTemplate(transactionManager);
+        readTx.setReadOnly(true);
+        writeTx = new TransactionTemplate(transactionManager);
+    }
+
+    @After
+    public void tearDown() {
+        ReadYourWrites.clear();
+        routing.close();
+    }
+
+    @Test
+    public void 읽기전용은_replica_나머지는_primary() throws Exception {
+        assertEquals("replica", readTx.execute(status -> marker()));
+        assertEquals("primary", writeTx.execute(status -> marker()));
+        assertEquals("트랜잭션 밖은 primary", "primary", marker());
+    }
+
+    @Test
+    public void 쓰기를_커밋한_클라이언트는_잠시_primary에서_읽음() throws Exception {
+        //given
+        ReadYourWrites.setClient("member-1");
+        writeTx.execute(status -> jdbcTemplate.update("update marker set touched = touched + 1"));
+
+        //then
+        assertEquals("같은 스레드", "primary", readTx.execute(status -> marker()));
+        assertEquals("같은 클라이언트의 다른 요청", "primary", readOnOtherThread("member-1"));
+        assertEquals("다른 클라이언트", "replica", readOnOtherThread("member-2"));
+
+        Thread.sleep(WINDOW_MS + 100);
+        assertEquals("window가 지나면 replica", "replica", readOnOtherThread("member-1"));
+    }
+
+    @Test
+    public void replica_장애시_primary로() throws Exception {
+        //given
+        replicaPool.close();
+
+        //then
+        assertEquals("primary", readTx.execute(status -> marker()));
+        routing.checkHealth();
+        assertEquals("primary", readTx.execute(status -> marker()));
+    }
+
+    private String marker() {
+        return jdbcTemplate.queryForObject("select name from marker", String.class);
+    }
+
+    private String readOnOtherThread(String client) throws Exception {
+        return CompletableFuture.supplyAsync(() -> {
+            ReadYourWrites.setClient(client);
+            try {
+                return readTx.execute(status -> marker());
+            } finally {
+                ReadYourWrites.clear();
+            }
+        }).get();
+    }
+
+    private static HikariDataSource h2(String name) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setJdbcUrl("jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        pool.setUsername("sa");
+        pool.setPoolName(name);
+        JdbcTemplate jdbc = new JdbcTemplate(pool);
+        jdbc.execute("create table marker (name varchar(20), touched int)");
+        jdbc.update("insert into marker values (?, 0)", name);
+        return pool;
+    }
+}
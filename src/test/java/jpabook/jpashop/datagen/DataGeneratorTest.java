@@ -0,0 +1,101 @@
+package jpabook.jpashop.datagen;
+
+import jpabook.jpashop.repository.CursorPage;
+import jpabook.jpashop.repository.OrderQueryCondition;
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * 시작할때 id-offset(1조)부터 한번 생성되고, 테스트에서 다른 id-offset으로 한번 더 생성해서 비교
+ * 여러 스레드가 청크를 나눠 넣어도 seed가 같으면 id 구간만 다르고 내용은 같아야 함
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "jpashop.datagen.members=50",
+        "jpashop.datagen.items-per-type=20",
+        "jpashop.datagen.category-depth=3",
+        "jpashop.datagen.category-fanout=3",
+        "jpashop.datagen.orders=2000",
+        "jpashop.datagen.max-lines-per-order=5",
+        "jpashop.datagen.batch-size=100",
+        "jpashop.datagen.chunk-size=300",
+        "jpashop.datagen.writers=3"})
+@ActiveProfiles("datagen")
+public class DataGeneratorTest {
+
+    private static final long FIRST = 1_000_000_000_000L;
+    private static final long SECOND = 2_000_000_000_000L;
+
+    @Autowired DataGenerator dataGenerator;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired OrderQueryRepository orderQueryRepository;
+
+    @Test
+    public void 시드가_같으면_같은_데이터() throws Exception {
+        //when
+        long lines = dataGenerator.generate(SECOND);
+
+        //then
+        assertEquals(lines, count("select count(*) from order_item where order_item_id >= ?", SECOND));
+        assertEquals("카테고리는 3 + 9 + 27개", 39L, count("select count(*) from category where category_id >= ?", SECOND));
+        assertEquals("InitDb는 꺼져 있어야 한다.", 0L, count("select count(*) from member where member_id < ?", FIRST));
+
+        assertEquals(orders(FIRST), orders(SECOND));
+        assertEquals(orderItems(FIRST), orderItems(SECOND));
+    }
+
+    @Test
+    public void 상품_인기는_한쪽으로_쏠림() throws Exception {
+        List<Long> perItem = jdbcTemplate.queryForList(
+                "select count(*) from order_item where order_item_id >= ? and order_item_id < ? group by item_id order by count(*) desc",
+                Long.class, FIRST, SECOND);
+        double average = perItem.stream().mapToLong(Long::longValue).average().orElse(0);
+
+        //상품 60개, skew 1이면 1위 상품이 주문상품의 20% 가까이, 균등이면 1.7%
+        assertTrue("가장 인기있는 상품이 평균의 3배보다 많이 팔려야 한다.", perItem.get(0) > average * 3);
+    }
+
+    @Test
+    public void 생성한_데이터를_JPA로_조회() throws Exception {
+        CursorPage<OrderQueryDto> page = orderQueryRepository.findAllByDto_flat(OrderQueryCondition.of(null, 10, null, null, null));
+
+        assertEquals(10, page.getContent().size());
+        page.getContent().forEach(o -> {
+            assertNotNull(o.getName());
+            assertNotNull(o.getAddress());
+            assertFalse(o.getOrderItems().isEmpty());
+        });
+    }
+
+    private long count(String sql, long from) {
+        return jdbcTemplate.queryForObject(sql, Long.class, from);
+    }
+
+    //id는 생성한 구간 시작점 기준으로 바꿔서 비교
+    private List<Map<String, Object>> orders(long offset) {
+        return jdbcTemplate.queryForList(
+                "select o.order_id - ? as order_id, o.member_id - ? as member_id, o.delivery_id - ? as delivery_id, o.order_date, o.status, d.status as delivery_status" +
+                        " from orders o join delivery d on d.delivery_id = o.delivery_id" +
+                        " where o.order_id >= ? and o.order_id < ? order by o.order_id",
+                offset, offset, offset, offset, offset + FIRST);
+    }
+
+    private List<Map<String, Object>> orderItems(long offset) {
+        return jdbcTemplate.queryForList(
+                "select order_item_id - ? as order_item_id, item_id - ? as item_id, order_id - ? as order_id, order_price, count" +
+                        " from order_item where order_item_id >= ? and order_item_id < ? order by order_item_id",
+                offset, offset, offset, offset, offset + FIRST);
+    }
+}
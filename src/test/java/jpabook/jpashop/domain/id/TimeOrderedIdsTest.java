@@ -0,0 +1,57 @@
+package jpabook.jpashop.domain.id;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+public class TimeOrderedIdsTest {
+
+    @Test
+    public void 증가하고_53비트안() throws Exception {
+        TimeOrderedIds ids = new TimeOrderedIds(3);
+
+        long previous = 0;
+        for (int i = 0; i < 100_000; i++) { //ms당 256개를 넘겨도 증가
+            long id = ids.next();
+            assertTrue("id는 항상 증가해야 한다.", id > previous);
+            assertTrue("자바스크립트 number로 정확히 표현되어야 한다.", id < (1L << 53));
+            assertEquals("노드 번호", 3, (id >> TimeOrderedIds.SEQUENCE_BITS) & TimeOrderedIds.MAX_NODE);
+            previous = id;
+        }
+    }
+
+    @Test
+    public void 여러스레드_중복없음() throws Exception {
+        TimeOrderedIds ids = new TimeOrderedIds(0);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<List<Long>>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(executor.submit(() -> {
+                List<Long> generated = new ArrayList<>();
+                for (int i = 0; i < 10_000; i++) {
+                    generated.add(ids.next());
+                }
+                return generated;
+            }));
+        }
+
+        Set<Long> unique = new HashSet<>();
+        for (Future<List<Long>> future : futures) {
+            unique.addAll(future.get(10, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        assertEquals(8 * 10_000, unique.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void 노드번호_범위() throws Exception {
+        new TimeOrderedIds(TimeOrderedIds.MAX_NODE + 1);
+    }
+}
@@ -0,0 +1,160 @@
+package jpabook.jpashop.repository.order.query;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jpabook.jpashop.TestFixtures;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.CursorPage;
+import jpabook.jpashop.repository.OrderCursor;
+import jpabook.jpashop.repository.OrderQueryCondition;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.OptimisticLockOrderFacade;
+import jpabook.jpashop.service.OrderLine;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * 루트/컬렉션 동시 조회가 순차 조회와 같은 페이지를 만드는지 확인
+ * 컬렉션 조회는 별도 트랜잭션(별도 커넥션)에서 돌므로 주문이 커밋되어 있어야 해서 @Transactional 없이
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class ParallelOrderQueryTest {
+
+    private static final int ORDERS = 7;
+    private static final int LIMIT = 3;
+    private static final int MANY_LINES = 40; //(LIMIT + 1) * flat-rows-per-order(8)보다 많게
+
+    @Autowired OrderQueryRepository orderQueryRepository;
+    @Autowired OptimisticLockOrderFacade orderFacade;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired DataSource dataSource;
+
+    @Test
+    public void 동시조회_순차조회와_같은_결과() throws Exception {
+        //given, 주문상품이 아주 많은 주문을 섞어서 컬렉션 쿼리가 페이지 중간에서 잘리게 함
+        Long memberId = createMember();
+        List<Long> bookIds = new ArrayList<>();
+        for (int i = 0; i < MANY_LINES; i++) {
+            bookIds.add(createBook("병렬조회-" + i));
+        }
+        List<Long> orderIds = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            int lineCount = i % 3 == 1 ? MANY_LINES : i + 1;
+            List<OrderLine> lines = new ArrayList<>();
+            for (int j = 0; j < lineCount; j++) {
+                lines.add(new OrderLine(bookIds.get(j), 1));
+            }
+            orderIds.add(orderFacade.order(memberId, lines));
+        }
+
+        //when, 두 방식으로 같은 커서를 따라 끝까지 넘김
+        Long after = orderIds.get(0) - 1;
+        List<OrderQueryDto> sequential = new ArrayList<>();
+        List<OrderQueryDto> parallel = new ArrayList<>();
+        while (after != null) {
+            OrderQueryCondition condition = OrderQueryCondition.of(after, LIMIT, null, null, null);
+            CursorPage<OrderQueryDto> expected = orderQueryRepository.findAllByDto_optimization(condition);
+            CursorPage<OrderQueryDto> actual = orderQueryRepository.findAllByDto_parallel(condition);
+
+            assertEquals("다음 페이지 커서가 같아야 한다.", expected.getNextCursor(), actual.getNextCursor());
+            sequential.addAll(expected.getContent());
+            parallel.addAll(actual.getContent());
+            after = OrderCursor.decode(actual.getNextCursor());
+        }
+
+        //then
+        assertEquals(sequential, parallel);
+        for (int i = 0; i < sequential.size(); i++) {
+            assertEquals("주문 " + sequential.get(i).getOrderId() + "의 주문상품이 같아야 한다.",
+                    sorted(sequential.get(i).getOrderItems()), sorted(parallel.get(i).getOrderItems()));
+        }
+        List<Long> placed = parallel.stream()
+                .map(OrderQueryDto::getOrderId)
+                .filter(orderIds::contains)
+                .collect(Collectors.toList());
+        assertEquals(orderIds, placed);
+        OrderQueryDto cut = parallel.stream()
+                .filter(o -> o.getOrderId().equals(orderIds.get(1)))
+                .findFirst()
+                .orElseThrow(AssertionError::new);
+        assertEquals("잘린 주문도 주문상품을 다시 읽어 전부 채워야 한다.", MANY_LINES, cut.getOrderItems().size());
+    }
+
+    /**
+     * 요청마다 커넥션을 잡은 채로(OSIV처럼) 커넥션 풀보다 많이 동시에 호출
+     * 별도 커넥션을 허용량 없이 기다리면 풀이 바닥나서 멈추고 hikari connectionTimeout(30초)에 실패함
+     */
+    @Test
+    public void 커넥션풀보다_많은_동시요청() throws Exception {
+        //given
+        Long memberId = createMember();
+        Long bookId = createBook("병렬조회-동시");
+        Long firstOrderId = orderFacade.order(memberId, List.of(new OrderLine(bookId, 1)));
+        for (int i = 0; i < LIMIT; i++) {
+            orderFacade.order(memberId, List.of(new OrderLine(bookId, 1)));
+        }
+        OrderQueryCondition condition = OrderQueryCondition.of(firstOrderId - 1, LIMIT, null, null, null);
+        List<OrderQueryDto> expected = orderQueryRepository.findAllByDto_optimization(condition).getContent();
+
+        int requests = dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize() * 3;
+        TransactionTemplate holdingTx = new TransactionTemplate(transactionManager);
+        ExecutorService callers = Executors.newFixedThreadPool(requests);
+        CountDownLatch start = new CountDownLatch(1);
+
+        //when
+        List<Future<List<OrderQueryDto>>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < requests; i++) {
+                futures.add(callers.submit(() -> {
+                    start.await();
+                    return holdingTx.execute(status -> orderQueryRepository.findAllByDto_parallel(condition).getContent());
+                }));
+            }
+            start.countDown();
+
+            //then, connectionTimeout보다 짧게 기다려서 멈췄으면 타임아웃으로 실패
+            for (Future<List<OrderQueryDto>> future : futures) {
+                assertEquals(expected, future.get(20, TimeUnit.SECONDS));
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    private List<OrderItemQueryDto> sorted(List<OrderItemQueryDto> orderItems) {
+        return orderItems.stream()
+                .sorted(Comparator.comparing(OrderItemQueryDto::getItemName))
+                .collect(Collectors.toList());
+    }
+
+    private Long createMember() {
+        return memberService.join(TestFixtures.uniqueMember("병렬조회"));
+    }
+
+    private Long createBook(String name) {
+        Book book = TestFixtures.book(name, 10000, 100);
+        itemService.saveItem(book);
+        return book.getId();
+    }
+}
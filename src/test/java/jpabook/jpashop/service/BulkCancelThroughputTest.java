@@ -0,0 +1,85 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.TestFixtures;
+import jpabook.jpashop.domain.item.Book;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 주문 ORDERS건씩을 건별 취소(주문마다 트랜잭션)와 대량 취소(청크마다 쿼리 5번)로 취소하고 처리량 비교
+ * 각자 커밋해야 비용이 드러나므로 @Transactional 없이
+ */
+@Slf4j
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class BulkCancelThroughputTest {
+
+    private static final int ORDERS = 300;
+    private static final int STOCK = ORDERS * 4;
+
+    @Autowired OptimisticLockOrderFacade orderFacade;
+    @Autowired OrderCancelJob orderCancelJob;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+
+    @Test
+    public void 대량취소_건별취소_처리량() throws Exception {
+        //given
+        Long memberId = createMember();
+        Long bookId = createBook();
+        Long otherId = createBook();
+        List<OrderLine> lines = Arrays.asList(new OrderLine(bookId, 1), new OrderLine(otherId, 1));
+        List<OrderRequest> requests = new ArrayList<>();
+        for (int i = 0; i < ORDERS * 2; i++) {
+            requests.add(new OrderRequest(memberId, lines));
+        }
+        List<Long> orderIds = orderFacade.placeBulk(requests).getOrderIds();
+
+        //when
+        long started = System.nanoTime();
+        for (Long orderId : orderIds.subList(0, ORDERS)) {
+            orderFacade.cancelOrder(orderId);
+        }
+        double perOrderRate = ORDERS * 1_000_000_000.0 / (System.nanoTime() - started);
+
+        List<Long> cancelIds = new ArrayList<>(orderIds.subList(ORDERS, ORDERS * 2));
+        cancelIds.add(orderIds.get(0)); //이미 취소된 주문
+        cancelIds.add(-1L); //없는 주문
+        BulkCancelResult result = orderCancelJob.run(cancelIds);
+
+        //then
+        log.info("cancels/s per-order={} bulk={}", String.format("%.1f", perOrderRate),
+                String.format("%.1f", result.getOrdersPerSecond()));
+        assertEquals(ORDERS, result.getCanceledCount());
+        assertEquals("요청 순서대로 주문별 결과가 와야 한다.", ORDERS + 2, result.getResults().size());
+        assertEquals(OrderCancelResult.Status.ALREADY_CANCELED, result.getResults().get(ORDERS).getStatus());
+        assertEquals(OrderCancelResult.Status.NOT_FOUND, result.getResults().get(ORDERS + 1).getStatus());
+        assertEquals("두 방식 모두 취소한 만큼 재고가 돌아와야 한다.",
+                STOCK, itemService.findOne(bookId).getStockQuantity());
+        assertEquals(STOCK, itemService.findOne(otherId).getStockQuantity());
+
+        BulkCancelResult again = orderCancelJob.run(orderIds.subList(ORDERS, ORDERS * 2));
+        assertEquals("다시 실행해도 재고가 두번 돌아오면 안된다.", 0, again.getCanceledCount());
+        assertEquals(STOCK, itemService.findOne(bookId).getStockQuantity());
+    }
+
+    private Long createMember() {
+        return memberService.join(TestFixtures.uniqueMember("대량취소"));
+    }
+
+    private Long createBook() {
+        Book book = TestFixtures.book("대량취소 JPA", 10000, STOCK);
+        itemService.saveItem(book);
+        return book.getId();
+    }
+}
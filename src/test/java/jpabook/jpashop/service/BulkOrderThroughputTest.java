@@ -0,0 +1,73 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.TestFixtures;
+import jpabook.jpashop.domain.item.Book;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 같은 주문 ORDERS건을 건별 주문(주문마다 트랜잭션)과 대량 주문(트랜잭션 하나, 배치 insert)으로 넣고 처리량 비교
+ * 각자 커밋해야 비용이 드러나므로 @Transactional 없이
+ */
+@Slf4j
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class BulkOrderThroughputTest {
+
+    private static final int ORDERS = 300;
+
+    @Autowired OptimisticLockOrderFacade orderFacade;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+
+    @Test
+    public void 대량주문_건별주문_처리량() throws Exception {
+        //given
+        Long memberId = createMember();
+        Long bookId = createBook(ORDERS * 4);
+        Long otherId = createBook(ORDERS * 4);
+        List<OrderLine> lines = Arrays.asList(new OrderLine(bookId, 1), new OrderLine(otherId, 1));
+
+        //when
+        long started = System.nanoTime();
+        for (int i = 0; i < ORDERS; i++) {
+            orderFacade.order(memberId, lines);
+        }
+        double perOrderRate = ORDERS * 1_000_000_000.0 / (System.nanoTime() - started);
+
+        List<OrderRequest> requests = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            requests.add(new OrderRequest(memberId, lines));
+        }
+        BulkOrderResult result = orderFacade.placeBulk(requests);
+
+        //then
+        log.info("orders/s per-order={} bulk={}", String.format("%.1f", perOrderRate),
+                String.format("%.1f", result.getOrdersPerSecond()));
+        assertEquals(ORDERS, result.getOrderIds().size());
+        assertEquals(ORDERS * 2, result.getLineCount());
+        assertEquals("두 방식 모두 주문 수만큼 재고가 줄어야 한다.",
+                ORDERS * 4 - ORDERS * 2, itemService.findOne(bookId).getStockQuantity());
+        assertEquals(ORDERS * 4 - ORDERS * 2, itemService.findOne(otherId).getStockQuantity());
+    }
+
+    private Long createMember() {
+        return memberService.join(TestFixtures.uniqueMember("대량주문"));
+    }
+
+    private Long createBook(int stock) {
+        Book book = TestFixtures.book("대량 JPA", 10000, stock);
+        itemService.saveItem(book);
+        return book.getId();
+    }
+}
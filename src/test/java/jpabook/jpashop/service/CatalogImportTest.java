@@ -0,0 +1,87 @@
+package jpabook.jpashop.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jpabook.jpashop.domain.item.Album;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.ItemRepository;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+/**
+ * 가져오기는 청크마다 커밋하므로 @Transactional 없이, sku는 테스트마다 다르게
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class CatalogImportTest {
+
+    @Autowired CatalogImportJob catalogImportJob;
+    @Autowired ItemRepository itemRepository;
+    @Autowired ObjectMapper objectMapper;
+
+    @Test
+    public void CSV_등록후_sku로_수정() throws Exception {
+        //given
+        String p = UUID.randomUUID().toString();
+        String csv = "type,sku,name,price,stockQuantity,author,isbn,artist,etc,director,actor\n" +
+                "BOOK," + p + "-1,\"JPA, 실전\",10000,10,김영한,1111,,,,\n" +
+                "A," + p + "-2,앨범,20000,5,,,\"가수 \"\"A\"\"\",,,\n" +
+                "MOVIE," + p + "-3,영화,30000,3,,,,,감독,배우\n" +
+                "BOOK," + p + "-4,가격없음,,10,,,,,,\n" +
+                "TOY," + p + "-5,장난감,1000,1,,,,,,\n";
+
+        //when
+        CatalogImportResult first = catalogImportJob.run(CatalogRecordReader.csv(new StringReader(csv)));
+        CatalogImportResult second = catalogImportJob.run(CatalogRecordReader.csv(new StringReader(
+                "type,sku,name,price,stockQuantity,author\n" +
+                        "B," + p + "-1,JPA 실전 2판,12000,20,김영한\n" +
+                        "B," + p + "-2,책으로 바꿈,1000,1,\n")));
+
+        //then
+        assertEquals(5, first.getRows());
+        assertEquals(3, first.getInserted());
+        assertEquals(2, first.getRejected());
+        assertEquals("거절된 행은 줄 번호로 알려줘야 한다.", 5, first.getRejectedRows().get(0).getLine());
+
+        assertEquals(0, second.getInserted());
+        assertEquals(1, second.getUpdated());
+        assertEquals("종류가 다른 같은 sku는 거절", 1, second.getRejected());
+
+        List<Item> items = itemRepository.findAllBySkus(Arrays.asList(p + "-1", p + "-2", p + "-3"));
+        assertEquals("다시 넣어도 중복 등록되지 않는다.", 3, items.size());
+        Book book = (Book) items.stream().filter(item -> item.getSku().equals(p + "-1")).findFirst().get();
+        assertEquals(12000, book.getPrice());
+        assertEquals("김영한", book.getAuthor());
+        Album album = (Album) items.stream().filter(item -> item.getSku().equals(p + "-2")).findFirst().get();
+        assertEquals("가수 \"A\"", album.getArtist());
+    }
+
+    @Test
+    public void NDJSON_깨진줄은_거절하고_계속() throws Exception {
+        //given
+        String p = UUID.randomUUID().toString();
+        String ndjson = "{\"type\":\"B\",\"sku\":\"" + p + "-1\",\"name\":\"책\",\"price\":1000,\"stockQuantity\":1}\n" +
+                "{\"type\":\"B\",\"sku\":\n" +
+                "\n" +
+                "{\"type\":\"M\",\"sku\":\"" + p + "-2\",\"name\":\"영화\",\"price\":2000,\"stockQuantity\":2,\"director\":\"감독\"}\n";
+
+        //when
+        CatalogImportResult result = catalogImportJob.run(
+                CatalogRecordReader.ndjson(new StringReader(ndjson), objectMapper));
+
+        //then
+        assertEquals(2, result.getInserted());
+        assertEquals(1, result.getRejected());
+        assertEquals(2, result.getRejectedRows().get(0).getLine());
+    }
+}
@@ -0,0 +1,134 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.TestFixtures;
+import jpabook.jpashop.domain.Category;
+import jpabook.jpashop.domain.item.Album;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.ItemAdjustment;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 일괄 조정은 청크마다 커밋하므로 @Transactional 없이
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class ItemAdjustmentJobTest {
+
+    @Autowired ItemAdjustmentJob itemAdjustmentJob;
+    @Autowired ItemService itemService;
+    @Autowired EntityManager em;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @Test
+    public void 하위카테고리까지_가격인하_재고추가() throws Exception {
+        //given
+        Long inRoot = createBook(10000, 10);
+        Long inChild = createAlbum(20000, 0);
+        Long outside = createBook(10000, 10);
+        Long rootId = new TransactionTemplate(transactionManager).execute(status -> {
+            Category root = new Category();
+            root.setName("음반/도서");
+            Category child = new Category();
+            child.setName("음반");
+            root.addChildCategory(child);
+            root.getItems().add(em.find(Item.class, inRoot));
+            child.getItems().add(em.find(Item.class, inChild));
+            child.getItems().add(em.find(Item.class, inRoot)); //두 카테고리에 있어도 한번만
+            em.persist(root);
+            em.persist(child);
+            return root.getId();
+        });
+
+        ItemAdjustment adjustment = new ItemAdjustment();
+        adjustment.setCategoryId(rootId);
+        adjustment.setPricePercent(-10);
+        adjustment.setStockDelta(5);
+
+        //when
+        ItemAdjustmentProgress progress = itemAdjustmentJob.run(adjustment);
+
+        //then
+        assertEquals(ItemAdjustmentProgress.State.DONE, progress.getState());
+        assertEquals(2, progress.getTotal());
+        assertEquals(2, progress.getUpdated());
+        assertEquals(100, progress.getPercent());
+        assertEquals(9000, itemService.findOne(inRoot).getPrice());
+        assertEquals(15, itemService.findOne(inRoot).getStockQuantity());
+        assertEquals(18000, itemService.findOne(inChild).getPrice());
+        assertEquals(5, itemService.findOne(inChild).getStockQuantity());
+        assertEquals("카테고리 밖 상품은 그대로", 10000, itemService.findOne(outside).getPrice());
+    }
+
+    @Test
+    public void id목록_재고는_0밑으로_내려가지_않음() throws Exception {
+        //given
+        Long first = createBook(1000, 3);
+        Long second = createBook(1000, 30);
+        ItemAdjustment adjustment = new ItemAdjustment();
+        adjustment.setItemIds(List.of(first, second, first));
+        adjustment.setStockDelta(-10);
+
+        //when
+        ItemAdjustmentProgress progress = itemAdjustmentJob.run(adjustment);
+
+        //then
+        assertEquals(2, progress.getUpdated());
+        assertEquals(0, itemService.findOne(first).getStockQuantity());
+        assertEquals(20, itemService.findOne(second).getStockQuantity());
+        assertEquals("가격은 그대로", 1000, itemService.findOne(first).getPrice());
+    }
+
+    @Test
+    public void 퍼센트_인상은_int를_넘지_않음() throws Exception {
+        //given
+        Long expensive = createBook(30_000_000, 100_000_000); //가격 x 100이 int 범위를 넘음
+        Long maxed = createBook(2_000_000_000, 1);
+        ItemAdjustment adjustment = new ItemAdjustment();
+        adjustment.setItemIds(List.of(expensive, maxed));
+        adjustment.setPricePercent(100);
+        adjustment.setStockPercent(50);
+
+        //when
+        ItemAdjustmentProgress progress = itemAdjustmentJob.run(adjustment);
+
+        //then
+        assertEquals(ItemAdjustmentProgress.State.DONE, progress.getState());
+        assertEquals(60_000_000, itemService.findOne(expensive).getPrice());
+        assertEquals(150_000_000, itemService.findOne(expensive).getStockQuantity());
+        assertEquals("결과가 int를 넘으면 최대값으로 자름", Integer.MAX_VALUE, itemService.findOne(maxed).getPrice());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void 대상이_둘이면_거절() throws Exception {
+        ItemAdjustment adjustment = new ItemAdjustment();
+        adjustment.setCategoryId(1L);
+        adjustment.setItemType("BOOK");
+        adjustment.setPriceDelta(100);
+
+        itemAdjustmentJob.submit(adjustment);
+    }
+
+    private Long createBook(int price, int stock) {
+        Book book = TestFixtures.book("조정 JPA", price, stock);
+        itemService.saveItem(book);
+        return book.getId();
+    }
+
+    private Long createAlbum(int price, int stock) {
+        Album album = TestFixtures.album("조정 앨범", price, stock);
+        itemService.saveItem(album);
+        return album.getId();
+    }
+}
@@ -0,0 +1,66 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.repository.NameMatch;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class NamePrefixIndexTest {
+
+    private final NamePrefixIndex index = NamePrefixIndex.of(Arrays.asList(
+            new NameMatch(1L, "spring"),
+            new NameMatch(2L, "JPA"),
+            new NameMatch(3L, "Spring Boot"),
+            new NameMatch(4L, "시골 JPA"),
+            new NameMatch(5L, null),
+            new NameMatch(6L, "spa")));
+
+    @Test
+    public void 앞부분일치_대소문자무시() throws Exception {
+        assertEquals(Arrays.asList(1L, 3L), idsOf(index.search("SPR", 10)));
+        assertEquals(Arrays.asList(6L, 1L, 3L), idsOf(index.search("sp", 10)));
+        assertEquals(Arrays.asList(4L), idsOf(index.search("시골", 10)));
+    }
+
+    @Test
+    public void limit만큼만() throws Exception {
+        assertEquals(Arrays.asList(6L, 1L), idsOf(index.search("sp", 2)));
+        assertTrue(index.search("", 10).isEmpty());
+        assertTrue(index.search("없는", 10).isEmpty());
+    }
+
+    @Test
+    public void 변경_삭제_반영() throws Exception {
+        //when
+        NamePrefixIndex changed = index.with(Arrays.asList(1L, 6L), Arrays.asList(new NameMatch(1L, "jdbc")));
+
+        //then
+        assertEquals(Arrays.asList(3L), idsOf(changed.search("sp", 10)));
+        assertEquals(Arrays.asList(1L), idsOf(changed.search("jd", 10)));
+        assertEquals("기존 인덱스는 그대로", Arrays.asList(6L, 1L, 3L), idsOf(index.search("sp", 10)));
+    }
+
+    @Test
+    public void 합친_결과는_새로_만든_것과_같은_순서() throws Exception {
+        //when
+        NamePrefixIndex merged = index.with(Arrays.asList(3L, 7L, 8L), Arrays.asList(
+                new NameMatch(3L, "sp"), new NameMatch(7L, "Spring Data"), new NameMatch(8L, "aaa")));
+        NamePrefixIndex rebuilt = NamePrefixIndex.of(Arrays.asList(
+                new NameMatch(1L, "spring"), new NameMatch(2L, "JPA"), new NameMatch(3L, "sp"),
+                new NameMatch(4L, "시골 JPA"), new NameMatch(6L, "spa"),
+                new NameMatch(7L, "Spring Data"), new NameMatch(8L, "aaa")));
+
+        //then
+        assertEquals(rebuilt.size(), merged.size());
+        assertEquals(idsOf(rebuilt.search("s", 10)), idsOf(merged.search("s", 10)));
+        assertEquals(idsOf(rebuilt.search("a", 10)), idsOf(merged.search("a", 10)));
+    }
+
+    private List<Long> idsOf(List<NameMatch> matches) {
+        return matches.stream().map(NameMatch::getId).collect(Collectors.toList());
+    }
+}
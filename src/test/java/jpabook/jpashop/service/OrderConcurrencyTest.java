@@ -0,0 +1,120 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.TestFixtures;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * 같은 상품에 동시 주문, 트랜잭션이 실제로 커밋되어야 하므로 @Transactional 없이
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class OrderConcurrencyTest {
+
+    private static final int STOCK = 10;
+    private static final int THREADS = 8;
+    private static final int ORDERS = 30;
+
+    @Autowired OptimisticLockOrderFacade orderFacade;
+    @Autowired OrderService orderService;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+    @Autowired StockLedger stockLedger;
+
+    @After
+    public void resetStrategy() {
+        setStrategy(StockStrategy.OPTIMISTIC);
+    }
+
+    @Test
+    public void 낙관적락_재시도_초과판매없음() throws Exception {
+        assertNoOverselling(StockStrategy.OPTIMISTIC);
+    }
+
+    @Test
+    public void 조건부업데이트_초과판매없음() throws Exception {
+        assertNoOverselling(StockStrategy.CONDITIONAL_UPDATE);
+    }
+
+    @Test
+    public void 재고장부_초과판매없음_반영후_DB재고일치() throws Exception {
+        assertNoOverselling(StockStrategy.LEDGER);
+    }
+
+    private void assertNoOverselling(StockStrategy strategy) throws Exception {
+        //given
+        setStrategy(strategy);
+        Long memberId = createMember();
+        Long itemId = createBook();
+
+        AtomicInteger ordered = new AtomicInteger();
+        AtomicInteger soldOut = new AtomicInteger();
+        AtomicInteger conflicted = new AtomicInteger();
+
+        //when
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    orderFacade.order(memberId, itemId, 1);
+                    ordered.incrementAndGet();
+                } catch (NotEnoughStockException e) {
+                    soldOut.incrementAndGet();
+                } catch (RuntimeException e) { //재시도 횟수 초과
+                    conflicted.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        //then
+        if (strategy == StockStrategy.LEDGER) {
+            assertEquals("장부 재고", 0, stockLedger.available(itemId).getAsInt());
+            stockLedger.flush(); //item 테이블에 반영
+        }
+        int stock = itemService.findOne(itemId).getStockQuantity();
+        assertTrue("재고는 음수가 될 수 없다.", stock >= 0);
+        assertEquals("성공한 주문 수만큼만 재고가 줄어야 한다.", STOCK - ordered.get(), stock);
+        assertEquals(ORDERS, ordered.get() + soldOut.get() + conflicted.get());
+        if (strategy != StockStrategy.OPTIMISTIC) {
+            assertEquals("조건부 update, 장부는 충돌이 없다.", STOCK, ordered.get());
+        }
+    }
+
+    private void setStrategy(StockStrategy strategy) {
+        ReflectionTestUtils.setField(AopTestUtils.getTargetObject(orderService), "stockStrategy", strategy);
+    }
+
+    private Long createMember() {
+        return memberService.join(TestFixtures.uniqueMember("동시주문"));
+    }
+
+    private Long createBook() {
+        Book book = TestFixtures.book("동시성 JPA", 10000, STOCK);
+        itemService.saveItem(book);
+        return book.getId();
+    }
+}
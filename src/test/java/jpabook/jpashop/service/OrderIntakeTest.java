@@ -0,0 +1,59 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.TestFixtures;
+import jpabook.jpashop.domain.item.Book;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 작업 스레드가 각자 커밋하므로 @Transactional 없이
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {"jpashop.order.intake.enabled=true", "jpashop.order.intake.batch-wait-ms=20"})
+public class OrderIntakeTest {
+
+    private static final int ORDERS = 40;
+
+    @Autowired OrderIntake orderIntake;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+
+    @Test
+    public void 접수후_묶어서_주문_실패한_접수만_FAILED() throws Exception {
+        //given
+        Long memberId = memberService.join(TestFixtures.uniqueMember("접수"));
+        Book book = TestFixtures.book("접수 JPA", 10000, ORDERS);
+        itemService.saveItem(book);
+        List<OrderLine> lines = List.of(new OrderLine(book.getId(), 1));
+
+        //when
+        List<OrderIntakeTicket> tickets = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            tickets.add(orderIntake.submit(new OrderRequest(memberId, lines)).get());
+        }
+        OrderIntakeTicket unknownMember = orderIntake.submit(new OrderRequest(-1L, lines)).get();
+        tickets.add(unknownMember);
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (tickets.stream().anyMatch(ticket -> ticket.getState() == OrderIntakeTicket.State.PENDING)) {
+            assertTrue("시간 안에 모든 접수가 처리되어야 한다.", System.currentTimeMillis() < deadline);
+            Thread.sleep(20);
+        }
+
+        //then
+        assertEquals(OrderIntakeTicket.State.FAILED, unknownMember.getState());
+        assertEquals("같은 묶음의 다른 접수는 주문되어야 한다.", ORDERS, tickets.stream()
+                .filter(ticket -> ticket.getState() == OrderIntakeTicket.State.PLACED && ticket.getOrderId() != null)
+                .count());
+        assertEquals(0, itemService.findOne(book.getId()).getStockQuantity());
+        assertSame(unknownMember, orderIntake.find(unknownMember.getTicketId()).get());
+    }
+}
@@ -0,0 +1,59 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.TestFixtures;
+import jpabook.jpashop.config.StatementCounter;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import org.hibernate.Hibernate;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+
+import static org.junit.Assert.*;
+
+/**
+ * 주문 한건의 SQL 수 상한
+ * 주문 이력이 많은 회원이어도 회원의 orders 컬렉션을 읽으면 안됨
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class OrderPlacementStatementBudgetTest {
+
+    //회원 select 1 + 상품 select 1 + 재고 update 1(@Version) + insert 3(주문, 주문상품, 배송) + id 할당(시퀀스) 여유 1
+    //시퀀스는 allocation-size개씩 받는데 같은 컨텍스트의 다른 테스트도 id를 쓰므로 이번 주문에서 새로 받을 수도 있음
+    private static final int BUDGET = 7;
+
+    @Autowired EntityManager em;
+    @Autowired OrderService orderService;
+
+    @Test
+    public void 주문이력이_많은_회원의_주문() throws Exception {
+        //given
+        Member member = TestFixtures.member("단골회원");
+        em.persist(member);
+        Book book = TestFixtures.book("시골 JPA", 10000, 1000);
+        em.persist(book);
+        for (int i = 0; i < 200; i++) {
+            orderService.order(member.getId(), book.getId(), 1);
+        }
+        em.flush();
+        em.clear();
+
+        //when
+        StatementCounter.start();
+        orderService.order(member.getId(), book.getId(), 1);
+        em.flush();
+        int statements = StatementCounter.stop();
+
+        //then
+        assertTrue("주문 한건의 SQL 수는 " + BUDGET + "개 이하여야 한다. 실제: " + statements, statements <= BUDGET);
+        Member reference = em.getReference(Member.class, member.getId());
+        assertFalse("회원의 주문 목록을 읽으면 안된다.", Hibernate.isInitialized(reference.getOrders()));
+    }
+}
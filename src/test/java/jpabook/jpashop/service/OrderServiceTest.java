@@ -7,7 +7,9 @@ import jpabook.jpashop.domain.OrderStatus;
 import jpabook.jpashop.domain.item.Book;
 import jpabook.jpashop.domain.item.Item;
 import jpabook.jpashop.exception.NotEnoughStockException;
+import jpabook.jpashop.repository.CursorPage;
 import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.OrderSearch;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,6 +18,10 @@ import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.*;
 
@@ -84,6 +90,64 @@ public class OrderServiceTest {
         assertEquals("주문이 취소된 상품은 그만큼 재고가 증가해야 한다.", 10, item.getStockQuantity());
     }
 
+    @Test
+    public void 장바구니주문() throws Exception {
+        //given
+        Member member = createMember();
+        Book book = createBook("시골 JPA", 10000, 10);
+        Book other = createBook("토비 스프링", 20000, 10);
+
+        //when
+        Long orderId = orderService.order(member.getId(),
+                Arrays.asList(new OrderLine(book.getId(), 2), new OrderLine(other.getId(), 3)));
+
+        //then
+        Order getOrder = orderRepository.findOne(orderId);
+        assertEquals("주문상품은 주문 한 줄마다 하나", 2, getOrder.getOrderItems().size());
+        assertEquals(10000 * 2 + 20000 * 3, getOrder.getTotalPrice());
+        assertEquals(8, book.getStockQuantity());
+        assertEquals(7, other.getStockQuantity());
+    }
+
+    @Test
+    public void 주문검색_회원명앞부분_커서페이징() throws Exception {
+        //given
+        Member member = createMember();
+        member.setName("검색회원");
+        Book book = createBook("시골 JPA", 10000, 10);
+        Book other = createBook("토비 스프링", 20000, 10);
+
+        Long first = orderService.order(member.getId(), book.getId(), 1);
+        Long second = orderService.order(member.getId(), other.getId(), 1);
+        Long third = orderService.order(member.getId(), book.getId(), 3);
+
+        OrderSearch orderSearch = new OrderSearch();
+        orderSearch.setMemberName("검색");
+        orderSearch.setLimit(2);
+
+        //when
+        CursorPage<Order> page1 = orderService.findOrders(orderSearch);
+        orderSearch.setAfter(page1.getNextCursor());
+        CursorPage<Order> page2 = orderService.findOrders(orderSearch);
+
+        //then
+        assertEquals("최신 주문부터 limit개", Arrays.asList(third, second), idsOf(page1));
+        assertNotNull("다음 페이지가 있으면 커서가 있어야 한다.", page1.getNextCursor());
+        assertEquals(Collections.singletonList(first), idsOf(page2));
+        assertNull("마지막 페이지는 커서가 없다.", page2.getNextCursor());
+
+        //상품, 최소 금액 조건
+        OrderSearch byItem = new OrderSearch();
+        byItem.setMemberName("검색");
+        byItem.setItemId(book.getId());
+        byItem.setMinTotal(20000L);
+        assertEquals(Collections.singletonList(third), idsOf(orderService.findOrders(byItem)));
+    }
+
+    private List<Long> idsOf(CursorPage<Order> page) {
+        return page.getContent().stream().map(Order::getId).collect(Collectors.toList());
+    }
+
     private Book createBook(String name, int price, int stockQuantity) {
         Book book = new Book();
         book.setName(name);
@@ -0,0 +1,130 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.TestFixtures;
+import jpabook.jpashop.config.StatementCounter;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.ItemPatch;
+import jpabook.jpashop.repository.MemberPatch;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+
+import static org.junit.Assert.*;
+
+/**
+ * 부분 수정의 SQL 수, 기존 읽고 바꾸기(updateItem)와 비교
+ */
+@Slf4j
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class PartialUpdateTest {
+
+    @Autowired EntityManager em;
+    @Autowired ItemService itemService;
+    @Autowired MemberService memberService;
+
+    @Test
+    public void 상품_version있으면_update_한번() throws Exception {
+        //given
+        Book book = createBook();
+
+        //when
+        StatementCounter.start();
+        long started = System.nanoTime();
+        itemService.updateItem(book.getId(), "시골 JPA 2판", 12000, 10);
+        em.flush();
+        long loadThenMutateNanos = System.nanoTime() - started;
+        int loadThenMutate = StatementCounter.stop();
+        Long version = itemService.findOne(book.getId()).getVersion();
+        em.clear();
+
+        ItemPatch patch = new ItemPatch();
+        patch.setVersion(version);
+        patch.setPrice(13000);
+        patch.setAuthor("김영한");
+        StatementCounter.start();
+        started = System.nanoTime();
+        Long patchedVersion = itemService.patchItem(book.getId(), patch);
+        long patchNanos = System.nanoTime() - started;
+        int patchStatements = StatementCounter.stop();
+
+        //then
+        log.info("statements load-then-mutate={} patch={}, micros {} / {}", loadThenMutate, patchStatements,
+                loadThenMutateNanos / 1000, patchNanos / 1000);
+        assertEquals("select + update", 2, loadThenMutate);
+        assertEquals("version을 보내면 읽지 않고 update 한번", 1, patchStatements);
+        assertEquals(Long.valueOf(version + 1), patchedVersion);
+        em.clear();
+        Book found = em.find(Book.class, book.getId());
+        assertEquals("보낸 값만 바뀐다.", "시골 JPA 2판", found.getName());
+        assertEquals(13000, found.getPrice());
+        assertEquals("김영한", found.getAuthor());
+    }
+
+    @Test(expected = ObjectOptimisticLockingFailureException.class)
+    public void 상품_version이_다르면_충돌() throws Exception {
+        Book book = createBook();
+        ItemPatch patch = new ItemPatch();
+        patch.setVersion(book.getVersion() + 1);
+        patch.setPrice(13000);
+
+        itemService.patchItem(book.getId(), patch);
+
+        fail("다른 수정이 먼저 있었으면 예외가 발생해야 한다.");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void 상품_종류가_다른_값은_거절() throws Exception {
+        Book book = createBook();
+        ItemPatch patch = new ItemPatch();
+        patch.setVersion(book.getVersion());
+        patch.setArtist("가수");
+
+        itemService.patchItem(book.getId(), patch);
+
+        fail("책에 앨범 값을 보내면 예외가 발생해야 한다.");
+    }
+
+    @Test
+    public void 회원_부분수정() throws Exception {
+        //given
+        Member member = TestFixtures.member("부분수정");
+        em.persist(member);
+        em.flush();
+        em.clear();
+
+        //when
+        MemberPatch patch = new MemberPatch();
+        patch.setVersion(member.getVersion());
+        patch.setCity("부산");
+        StatementCounter.start();
+        memberService.patch(member.getId(), patch);
+        int statements = StatementCounter.stop();
+
+        //then
+        assertEquals(1, statements);
+        em.clear();
+        Member found = em.find(Member.class, member.getId());
+        assertEquals("부산", found.getAddress().getCity());
+        assertEquals("강가", found.getAddress().getStreet());
+        assertEquals("부분수정", found.getName());
+    }
+
+    private Book createBook() {
+        Book book = TestFixtures.book("시골 JPA", 10000, 10);
+        book.setAuthor("저자");
+        em.persist(book);
+        em.flush();
+        em.clear();
+        return book;
+    }
+}
@@ -0,0 +1,62 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.TestFixtures;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
+
+import static org.junit.Assert.*;
+
+/**
+ * 장부 반영(flush)은 예약된 상품 행만 2차 캐시에서 비워야 함, item 리전 전체를 비우면 반영 주기마다 모든 상품을 다시 읽음
+ * 테스트 설정에는 2차 캐시가 꺼져 있으므로 여기서만 켬, 반영은 별도 트랜잭션이라 @Transactional 없이
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=true",
+        "spring.jpa.properties.hibernate.cache.region.factory_class=jcache",
+        "spring.jpa.properties.hibernate.javax.cache.provider=com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider",
+        "spring.jpa.properties.hibernate.javax.cache.missing_cache_strategy=create"
+})
+public class StockLedgerFlushCacheTest {
+
+    @Autowired StockLedger stockLedger;
+    @Autowired ItemService itemService;
+    @Autowired EntityManagerFactory emf;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @Test
+    public void 반영한_상품만_캐시에서_비움() throws Exception {
+        //given
+        Book reserved = TestFixtures.book("장부 JPA", 10000, 10);
+        Book unrelated = TestFixtures.book("다른 JPA", 10000, 10);
+        itemService.saveItem(reserved);
+        itemService.saveItem(unrelated);
+        itemService.findOne(reserved.getId());
+        itemService.findOne(unrelated.getId());
+        Cache cache = emf.getCache();
+        assertTrue("읽은 상품은 캐시에 있어야 한다.", cache.contains(Item.class, unrelated.getId()));
+
+        new TransactionTemplate(transactionManager).execute(status -> {
+            stockLedger.reserve(reserved.getId(), 3);
+            return null;
+        });
+
+        //when
+        stockLedger.flush();
+
+        //then
+        //반영한 상품은 비워진 뒤 상품 스냅샷(ItemCatalog)이 다시 읽어 캐시에 넣을 수 있으므로 값으로 확인
+        assertTrue("다른 상품의 캐시는 그대로여야 한다.", cache.contains(Item.class, unrelated.getId()));
+        assertEquals("반영한 상품은 새 재고로 읽혀야 한다.", 7, itemService.findOne(reserved.getId()).getStockQuantity());
+    }
+}